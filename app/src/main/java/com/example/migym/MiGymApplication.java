@@ -5,6 +5,8 @@ import android.content.Context;
 import android.util.Log;
 import com.example.migym.api.ApiClient;
 import com.example.migym.data.AppDatabase;
+import com.example.migym.data.WorkoutScheduleStore;
+import com.example.migym.notifications.ReminderScheduler;
 import com.example.migym.utils.LocaleHelper;
 import com.example.migym.utils.UserPreferences;
 import com.google.firebase.FirebaseApp;
@@ -38,8 +40,10 @@ public class MiGymApplication extends Application {
 
             userPreferences = new UserPreferences(this);
             ApiClient.init(this);
-            // Initialize the database
-            AppDatabase.getInstance(this);
+            // Initialize the database and warm the schedule off the main thread
+            WorkoutScheduleStore.getInstance(AppDatabase.getInstance(this)).preload();
+            // Arm the next reminders, e.g. after an update that changed how they are scheduled
+            ReminderScheduler.getInstance(this).rearm();
         } catch (Exception e) {
             Log.e("MiGymApplication", "Error initializing Firebase", e);
         }
@@ -6,42 +6,81 @@ import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncDifferConfig;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.migym.R;
-import com.example.migym.models.Workout;
-import java.util.Locale;
+import com.example.migym.models.WorkoutSummary;
+import com.example.migym.utils.AppExecutors;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+public class WorkoutAdapter extends ListAdapter<WorkoutRow, WorkoutAdapter.WorkoutViewHolder> {
+    // Payload flags naming the displayed fields that changed
+    static final int CHANGED_NAME = 1;
+    static final int CHANGED_TIME = 1 << 1;
+    static final int CHANGED_DAY = 1 << 2;
+    static final int CHANGED_DURATION = 1 << 3;
+    static final int CHANGED_LOCATION = 1 << 4;
+    static final int CHANGED_TYPE = 1 << 5;
+    static final int CHANGED_ALL = CHANGED_NAME | CHANGED_TIME | CHANGED_DAY | CHANGED_DURATION
+            | CHANGED_LOCATION | CHANGED_TYPE;
+
+    // Every version bump changes the row, so ids and versions are enough to diff
+    static final DiffUtil.ItemCallback<WorkoutRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<WorkoutRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WorkoutRow oldItem, @NonNull WorkoutRow newItem) {
+            return oldItem.getId().equals(newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull WorkoutRow oldItem, @NonNull WorkoutRow newItem) {
+            return oldItem.getVersion() == newItem.getVersion();
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull WorkoutRow oldItem, @NonNull WorkoutRow newItem) {
+            int changes = 0;
+            if (!Objects.equals(oldItem.getName(), newItem.getName())) changes |= CHANGED_NAME;
+            if (!Objects.equals(oldItem.getTimeLabel(), newItem.getTimeLabel())) changes |= CHANGED_TIME;
+            if (!Objects.equals(oldItem.getDayLabel(), newItem.getDayLabel())) changes |= CHANGED_DAY;
+            if (!Objects.equals(oldItem.getDurationLabel(), newItem.getDurationLabel())) changes |= CHANGED_DURATION;
+            if (!Objects.equals(oldItem.getLocation(), newItem.getLocation())) changes |= CHANGED_LOCATION;
+            if (!Objects.equals(oldItem.getTypeLabel(), newItem.getTypeLabel())) changes |= CHANGED_TYPE;
+            // A new version with no visible change needs no rebind at all
+            return changes;
+        }
+    };
+
+    /**
+     * Diffs of every workout list run on the shared compute pool. AsyncListDiffer drops
+     * results of superseded lists, so the pool does not need to be serial.
+     */
+    static final Executor DIFF_EXECUTOR = command -> AppExecutors.getInstance().compute().execute("workout-diff", command);
+
+    private static final AsyncDifferConfig<WorkoutRow> DIFF_CONFIG =
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).setBackgroundThreadExecutor(DIFF_EXECUTOR).build();
 
-public class WorkoutAdapter extends ListAdapter<Workout, WorkoutAdapter.WorkoutViewHolder> {
     private final OnWorkoutClickListener listener;
 
     public interface OnWorkoutClickListener {
-        void onWorkoutClick(Workout workout);
-        void onDeleteClick(Workout workout);
+        void onWorkoutClick(WorkoutSummary workout);
+        void onDeleteClick(WorkoutSummary workout);
     }
 
     public WorkoutAdapter(OnWorkoutClickListener listener) {
-        super(new DiffUtil.ItemCallback<Workout>() {
-            @Override
-            public boolean areItemsTheSame(@NonNull Workout oldItem, @NonNull Workout newItem) {
-                return oldItem.getId().equals(newItem.getId());
-            }
-
-            @Override
-            public boolean areContentsTheSame(@NonNull Workout oldItem, @NonNull Workout newItem) {
-                return oldItem.equals(newItem);
-            }
-        });
+        super(DIFF_CONFIG);
         this.listener = listener;
     }
 
     @NonNull
     @Override
     public WorkoutViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-            .inflate(R.layout.item_workout, parent, false);
-        return new WorkoutViewHolder(view);
+        return WorkoutViewHolder.create(parent, listener);
     }
 
     @Override
@@ -49,15 +88,48 @@ public class WorkoutAdapter extends ListAdapter<Workout, WorkoutAdapter.WorkoutV
         holder.bind(getItem(position));
     }
 
-    class WorkoutViewHolder extends RecyclerView.ViewHolder {
+    @Override
+    public void onBindViewHolder(@NonNull WorkoutViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindChanges(getItem(position), mergePayloads(payloads));
+        }
+    }
+
+    static int mergePayloads(List<Object> payloads) {
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                changes |= (Integer) payload;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * View holder for item_workout, shared by the list and paged adapters.
+     * Click callbacks use the bound workout, so it does not depend on the adapter type.
+     * Rows arrive fully formatted, so binding only sets text.
+     */
+    public static class WorkoutViewHolder extends RecyclerView.ViewHolder {
         private final TextView nameText;
         private final TextView timeText;
         private final TextView locationText;
         private final TextView durationText;
         private final ImageButton deleteButton;
         private final TextView dayText;
+        private final TextView typeText;
+        @Nullable
+        private WorkoutRow row;
 
-        WorkoutViewHolder(@NonNull View itemView) {
+        static WorkoutViewHolder create(@NonNull ViewGroup parent, OnWorkoutClickListener listener) {
+            View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_workout, parent, false);
+            return new WorkoutViewHolder(view, listener);
+        }
+
+        WorkoutViewHolder(@NonNull View itemView, OnWorkoutClickListener listener) {
             super(itemView);
             nameText = itemView.findViewById(R.id.workoutNameText);
             timeText = itemView.findViewById(R.id.workoutTimeText);
@@ -65,34 +137,63 @@ public class WorkoutAdapter extends ListAdapter<Workout, WorkoutAdapter.WorkoutV
             durationText = itemView.findViewById(R.id.workoutDurationText);
             deleteButton = itemView.findViewById(R.id.deleteWorkoutButton);
             dayText = itemView.findViewById(R.id.workoutDayText);
+            typeText = itemView.findViewById(R.id.workoutTypeText);
 
             itemView.setOnClickListener(v -> {
-                int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION) {
-                    listener.onWorkoutClick(getItem(position));
+                if (row != null) {
+                    listener.onWorkoutClick(row.getSummary());
                 }
             });
 
             deleteButton.setOnClickListener(v -> {
-                int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION) {
-                    listener.onDeleteClick(getItem(position));
+                if (row != null) {
+                    listener.onDeleteClick(row.getSummary());
                 }
             });
         }
 
-        void bind(Workout workout) {
-            nameText.setText(workout.getName());
-            timeText.setText(workout.getTime());
-            locationText.setText(workout.getLocation());
-            durationText.setText(String.format(Locale.getDefault(), "%d min", workout.getDuration()));
-            String[] days = itemView.getContext().getResources().getStringArray(R.array.days_of_week);
-            int dayIndex = workout.getDayOfWeek();
-            if (dayIndex >= 0 && dayIndex < days.length) {
-                dayText.setText(days[dayIndex]);
-            } else {
-                dayText.setText("");
+        void bind(WorkoutRow row) {
+            deleteButton.setVisibility(View.VISIBLE);
+            bindChanges(row, CHANGED_ALL);
+        }
+
+        /**
+         * Rebinds only the fields named by the CHANGED_* flags
+         */
+        void bindChanges(WorkoutRow row, int changes) {
+            this.row = row;
+            if ((changes & CHANGED_NAME) != 0) {
+                nameText.setText(row.getName());
             }
+            if ((changes & CHANGED_TIME) != 0) {
+                timeText.setText(row.getTimeLabel());
+            }
+            if ((changes & CHANGED_LOCATION) != 0) {
+                locationText.setText(row.getLocation());
+            }
+            if ((changes & CHANGED_DURATION) != 0) {
+                durationText.setText(row.getDurationLabel());
+            }
+            if ((changes & CHANGED_DAY) != 0) {
+                dayText.setText(row.getDayLabel());
+            }
+            if ((changes & CHANGED_TYPE) != 0) {
+                typeText.setText(row.getTypeLabel());
+            }
+        }
+
+        /**
+         * Clears the row while its page is still loading
+         */
+        void bindPlaceholder() {
+            this.row = null;
+            deleteButton.setVisibility(View.INVISIBLE);
+            nameText.setText("");
+            timeText.setText("");
+            locationText.setText("");
+            durationText.setText("");
+            dayText.setText("");
+            typeText.setText("");
         }
     }
-}
\ No newline at end of file
+}
@@ -8,6 +8,9 @@ import com.example.migym.ui.workout.DayWorkoutsFragment;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * One page per weekday, in the day_of_week order of the page titles.
+ */
 public class WorkoutPagerAdapter extends FragmentStateAdapter {
     private final List<String> days;
 
@@ -18,19 +21,20 @@ public class WorkoutPagerAdapter extends FragmentStateAdapter {
     }
 
     private void initializeDays() {
-        days.add("Domingo");
         days.add("Lunes");
         days.add("Martes");
         days.add("Miércoles");
         days.add("Jueves");
         days.add("Viernes");
         days.add("Sábado");
+        days.add("Domingo");
     }
 
     @NonNull
     @Override
     public Fragment createFragment(int position) {
-        return DayWorkoutsFragment.newInstance(days.get(position));
+        // Pages follow the day_of_week numbering, starting on Monday (0)
+        return DayWorkoutsFragment.newInstance(position);
     }
 
     @Override
@@ -0,0 +1,48 @@
+package com.example.migym.adapters;
+
+import android.view.ViewGroup;
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import java.util.List;
+import kotlinx.coroutines.Dispatchers;
+import kotlinx.coroutines.ExecutorsKt;
+
+/**
+ * Paged version of {@link WorkoutAdapter}. Only the loaded pages are kept in memory
+ * and rows that are not loaded yet are bound as empty placeholders.
+ */
+public class WorkoutPagingAdapter extends PagingDataAdapter<WorkoutRow, WorkoutAdapter.WorkoutViewHolder> {
+    private final WorkoutAdapter.OnWorkoutClickListener listener;
+
+    public WorkoutPagingAdapter(WorkoutAdapter.OnWorkoutClickListener listener) {
+        // Diffs run on the same shared thread as the non-paged lists
+        super(WorkoutAdapter.DIFF_CALLBACK, Dispatchers.getMain(), ExecutorsKt.from(WorkoutAdapter.DIFF_EXECUTOR));
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public WorkoutAdapter.WorkoutViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return WorkoutAdapter.WorkoutViewHolder.create(parent, listener);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull WorkoutAdapter.WorkoutViewHolder holder, int position) {
+        WorkoutRow workout = getItem(position);
+        if (workout != null) {
+            holder.bind(workout);
+        } else {
+            holder.bindPlaceholder();
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull WorkoutAdapter.WorkoutViewHolder holder, int position, @NonNull List<Object> payloads) {
+        WorkoutRow workout = getItem(position);
+        if (payloads.isEmpty() || workout == null) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindChanges(workout, WorkoutAdapter.mergePayloads(payloads));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.migym.adapters;
+
+import androidx.annotation.NonNull;
+import com.example.migym.models.WorkoutSummary;
+
+/**
+ * Immutable display model for one item_workout row. Every label is formatted once when
+ * the data changes, see {@link WorkoutRowFactory}, so binding only calls setText.
+ */
+public final class WorkoutRow {
+    @NonNull
+    private final WorkoutSummary summary;
+    private final String dayLabel;
+    private final String timeLabel;
+    private final String durationLabel;
+    private final String typeLabel;
+
+    WorkoutRow(@NonNull WorkoutSummary summary, String dayLabel, String timeLabel,
+               String durationLabel, String typeLabel) {
+        this.summary = summary;
+        this.dayLabel = dayLabel;
+        this.timeLabel = timeLabel;
+        this.durationLabel = durationLabel;
+        this.typeLabel = typeLabel;
+    }
+
+    /**
+     * The workout behind the row, passed to click callbacks
+     */
+    @NonNull
+    public WorkoutSummary getSummary() {
+        return summary;
+    }
+
+    @NonNull
+    public String getId() {
+        return summary.getId();
+    }
+
+    public int getVersion() {
+        return summary.getVersion();
+    }
+
+    public String getName() {
+        return summary.getName();
+    }
+
+    public String getLocation() {
+        return summary.getLocation();
+    }
+
+    public String getDayLabel() {
+        return dayLabel;
+    }
+
+    public String getTimeLabel() {
+        return timeLabel;
+    }
+
+    public String getDurationLabel() {
+        return durationLabel;
+    }
+
+    public String getTypeLabel() {
+        return typeLabel;
+    }
+}
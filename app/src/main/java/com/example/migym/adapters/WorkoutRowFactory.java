@@ -0,0 +1,95 @@
+package com.example.migym.adapters;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import com.example.migym.R;
+import com.example.migym.models.WorkoutSummary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Formats {@link WorkoutSummary} values into {@link WorkoutRow} display models.
+ * Resource arrays are read once per factory instead of once per bind.
+ */
+public class WorkoutRowFactory {
+    private final String[] days;
+    private final String[] types;
+
+    /**
+     * Background executor rows are built on; the compute pool the lists diff on
+     */
+    @NonNull
+    public static Executor getExecutor() {
+        return WorkoutAdapter.DIFF_EXECUTOR;
+    }
+
+    public WorkoutRowFactory(@NonNull Context context) {
+        days = context.getResources().getStringArray(R.array.days_of_week);
+        types = context.getResources().getStringArray(R.array.workout_types);
+    }
+
+    @WorkerThread
+    @NonNull
+    public WorkoutRow create(@NonNull WorkoutSummary summary) {
+        int dayIndex = summary.getDayOfWeek();
+        String dayLabel = dayIndex >= 0 && dayIndex < days.length ? days[dayIndex] : "";
+        String timeLabel = summary.getTime() != null ? summary.getTime() : "";
+        String durationLabel = String.format(Locale.getDefault(), "%d min", summary.getDuration());
+        return new WorkoutRow(summary, dayLabel, timeLabel, durationLabel, typeLabel(summary.getType()));
+    }
+
+    @WorkerThread
+    @NonNull
+    public List<WorkoutRow> createAll(List<WorkoutSummary> summaries) {
+        if (summaries == null) {
+            return new ArrayList<>();
+        }
+        List<WorkoutRow> rows = new ArrayList<>(summaries.size());
+        for (WorkoutSummary summary : summaries) {
+            rows.add(create(summary));
+        }
+        return rows;
+    }
+
+    /**
+     * Maps every list emitted by the source to rows on the given executor.
+     * Only the latest emission is posted, so a pool may finish them out of order.
+     */
+    @NonNull
+    public LiveData<List<WorkoutRow>> mapAsync(@NonNull LiveData<List<WorkoutSummary>> source,
+                                               @NonNull Executor executor) {
+        MediatorLiveData<List<WorkoutRow>> rows = new MediatorLiveData<>();
+        AtomicInteger latest = new AtomicInteger();
+        rows.addSource(source, summaries -> {
+            int generation = latest.incrementAndGet();
+            executor.execute(() -> {
+                List<WorkoutRow> built = createAll(summaries);
+                synchronized (rows) {
+                    if (latest.get() == generation) {
+                        rows.postValue(built);
+                    }
+                }
+            });
+        });
+        return rows;
+    }
+
+    // Types are stored as the index of the spinner entry, older rows as free text
+    private String typeLabel(String type) {
+        if (type == null) {
+            return "";
+        }
+        try {
+            int index = Integer.parseInt(type);
+            return index >= 0 && index < types.length ? types[index] : type;
+        } catch (NumberFormatException e) {
+            return type;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.migym.calendar;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.migym.models.WorkoutReminder;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occurrences of the weekly schedule in a time zone.
+ * <p>
+ * A workout happens every week on its day at its local wall-clock time, so a 07:30 class
+ * stays at 07:30 when the clocks change. A time that does not exist on the day the clocks
+ * go forward is moved forward by the length of the gap; a time that happens twice when they
+ * go back uses the first one. This is how {@link ZonedDateTime#of} resolves local times.
+ * <p>
+ * Each week's start times are computed once and cached. In a week without an offset change,
+ * which is almost every week, they are plain arithmetic on the workout's minute of the week.
+ * Instances are immutable apart from the cache and can be shared between threads.
+ */
+public final class WorkoutCalendar {
+    private static final int DAYS_PER_WEEK = 7;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    // Enough for the current week, its neighbours and a range query of a few months
+    private static final int CACHED_WEEKS = 32;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    // Sorted by local minute of the week, Monday 00:00 first
+    private final WorkoutReminder[] workouts;
+    private final int[] minuteOfWeek;
+    private final int[] localOrder;
+    private final Map<LocalDate, Week> weeks = new LinkedHashMap<LocalDate, Week>(CACHED_WEEKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, Week> eldest) {
+            return size() > CACHED_WEEKS;
+        }
+    };
+
+    /**
+     * One occurrence of a workout
+     */
+    public static final class Occurrence {
+        private final WorkoutReminder workout;
+        private final long startMillis;
+
+        Occurrence(WorkoutReminder workout, long startMillis) {
+            this.workout = workout;
+            this.startMillis = startMillis;
+        }
+
+        @NonNull
+        public WorkoutReminder getWorkout() {
+            return workout;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * End after the workout's duration in elapsed time, even across a clock change
+         */
+        public long getEndMillis() {
+            return startMillis + workout.getDuration() * MILLIS_PER_MINUTE;
+        }
+
+        @NonNull
+        public ZonedDateTime getStart(@NonNull ZoneId zone) {
+            return Instant.ofEpochMilli(startMillis).atZone(zone);
+        }
+    }
+
+    /**
+     * Receives occurrences without allocating one object per occurrence
+     */
+    public interface Visitor {
+        void visit(@NonNull WorkoutReminder workout, long startMillis);
+    }
+
+    // Start of every workout in one week, by index and in time order
+    private static final class Week {
+        final long[] startMillis;
+        final int[] byTime;
+
+        Week(long[] startMillis, int[] byTime) {
+            this.startMillis = startMillis;
+            this.byTime = byTime;
+        }
+    }
+
+    public WorkoutCalendar(@NonNull List<WorkoutReminder> schedule, @NonNull ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        int size = schedule.size();
+        Integer[] order = new Integer[size];
+        int[] minutes = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            WorkoutReminder workout = schedule.get(i);
+            minutes[i] = dayIndex(workout.getDayOfWeek()) * 24 * 60 + parseTime(workout.getTime()).toSecondOfDay() / 60;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(minutes[a], minutes[b]));
+
+        workouts = new WorkoutReminder[size];
+        minuteOfWeek = new int[size];
+        localOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            workouts[i] = schedule.get(order[i]);
+            minuteOfWeek[i] = minutes[order[i]];
+            localOrder[i] = i;
+        }
+    }
+
+    @NonNull
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * First occurrence of any workout starting strictly after the given time
+     */
+    @Nullable
+    public synchronized Occurrence next(long afterMillis) {
+        if (workouts.length == 0) return null;
+        LocalDate monday = mondayOf(afterMillis);
+        // The next occurrence is at most one week and a bit away, whatever the clock changes
+        for (int w = 0; w < 3; w++) {
+            Week week = week(monday.plusWeeks(w));
+            for (int index : week.byTime) {
+                if (week.startMillis[index] > afterMillis) {
+                    return new Occurrence(workouts[index], week.startMillis[index]);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Last occurrence of any workout starting strictly before the given time
+     */
+    @Nullable
+    public synchronized Occurrence previous(long beforeMillis) {
+        if (workouts.length == 0) return null;
+        LocalDate monday = mondayOf(beforeMillis);
+        for (int w = 0; w < 3; w++) {
+            Week week = week(monday.minusWeeks(w));
+            for (int i = week.byTime.length - 1; i >= 0; i--) {
+                int index = week.byTime[i];
+                if (week.startMillis[index] < beforeMillis) {
+                    return new Occurrence(workouts[index], week.startMillis[index]);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Occurrences starting in [from, to), earliest first
+     */
+    @NonNull
+    public List<Occurrence> between(long fromMillis, long toMillis) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        forEachBetween(fromMillis, toMillis, (workout, start) -> occurrences.add(new Occurrence(workout, start)));
+        return occurrences;
+    }
+
+    /**
+     * Visits the occurrences starting in [from, to), earliest first
+     */
+    public synchronized void forEachBetween(long fromMillis, long toMillis, @NonNull Visitor visitor) {
+        if (workouts.length == 0 || fromMillis >= toMillis) return;
+        // An occurrence of the previous week can fall after its Monday around a clock change
+        for (LocalDate monday = mondayOf(fromMillis).minusWeeks(1);
+             !monday.atStartOfDay(zone).toInstant().isAfter(Instant.ofEpochMilli(toMillis)); monday = monday.plusWeeks(1)) {
+            Week week = week(monday);
+            for (int index : week.byTime) {
+                long start = week.startMillis[index];
+                if (start >= fromMillis && start < toMillis) {
+                    visitor.visit(workouts[index], start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start of one workout strictly after the given time
+     */
+    public static long nextStart(@NonNull WorkoutReminder workout, long afterMillis, @NonNull ZoneId zone) {
+        return nextStart(workout.getDayOfWeek(), parseTime(workout.getTime()), afterMillis, zone);
+    }
+
+    /**
+     * Start of a weekly time strictly after the given time
+     * @param dayOfWeek day_of_week as stored, Monday is 0 and both 6 and 7 are Sunday
+     */
+    public static long nextStart(int dayOfWeek, @NonNull LocalTime time, long afterMillis, @NonNull ZoneId zone) {
+        DayOfWeek day = DayOfWeek.of(dayIndex(dayOfWeek) + 1);
+        LocalDate date = Instant.ofEpochMilli(afterMillis).atZone(zone).toLocalDate()
+                .with(TemporalAdjusters.nextOrSame(day));
+        long start = ZonedDateTime.of(date, time, zone).toInstant().toEpochMilli();
+        // Step whole local weeks, so the wall-clock time is kept across clock changes
+        while (start <= afterMillis) {
+            date = date.plusWeeks(1);
+            start = ZonedDateTime.of(date, time, zone).toInstant().toEpochMilli();
+        }
+        return start;
+    }
+
+    /**
+     * Start of a weekly time strictly before the given time
+     */
+    public static long previousStart(int dayOfWeek, @NonNull LocalTime time, long beforeMillis, @NonNull ZoneId zone) {
+        DayOfWeek day = DayOfWeek.of(dayIndex(dayOfWeek) + 1);
+        LocalDate date = Instant.ofEpochMilli(beforeMillis).atZone(zone).toLocalDate()
+                .with(TemporalAdjusters.previousOrSame(day));
+        long start = ZonedDateTime.of(date, time, zone).toInstant().toEpochMilli();
+        while (start >= beforeMillis) {
+            date = date.minusWeeks(1);
+            start = ZonedDateTime.of(date, time, zone).toInstant().toEpochMilli();
+        }
+        return start;
+    }
+
+    /**
+     * Parses the "HH:mm" time stored with a workout
+     */
+    @NonNull
+    public static LocalTime parseTime(@NonNull String time) {
+        int colon = time.indexOf(':');
+        return LocalTime.of(Integer.parseInt(time.substring(0, colon).trim()),
+                Integer.parseInt(time.substring(colon + 1).trim()));
+    }
+
+    /**
+     * Days from Monday. day_of_week counts Monday as 0, like the days_of_week array;
+     * rows saved with the old 1-7 numbering store Sunday as 7.
+     */
+    static int dayIndex(int dayOfWeek) {
+        return Math.min(Math.max(dayOfWeek, 0), DAYS_PER_WEEK - 1);
+    }
+
+    private LocalDate mondayOf(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate()
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private Week week(LocalDate monday) {
+        Week week = weeks.get(monday);
+        if (week == null) {
+            week = computeWeek(monday);
+            weeks.put(monday, week);
+        }
+        return week;
+    }
+
+    private Week computeWeek(LocalDate monday) {
+        LocalDateTime weekStart = monday.atStartOfDay();
+        ZonedDateTime zonedStart = weekStart.atZone(zone);
+        Instant weekEnd = zonedStart.plusWeeks(1).toInstant();
+        ZoneOffsetTransition transition = rules.nextTransition(zonedStart.toInstant());
+        long[] startMillis = new long[workouts.length];
+
+        boolean fixedOffset = rules.getValidOffsets(weekStart).size() == 1
+                && (transition == null || !transition.getInstant().isBefore(weekEnd));
+        if (fixedOffset) {
+            // Same offset all week: local order is time order
+            ZoneOffset offset = zonedStart.getOffset();
+            long base = weekStart.toEpochSecond(offset) * 1000L;
+            for (int i = 0; i < workouts.length; i++) {
+                startMillis[i] = base + minuteOfWeek[i] * MILLIS_PER_MINUTE;
+            }
+            return new Week(startMillis, localOrder);
+        }
+
+        Integer[] order = new Integer[workouts.length];
+        for (int i = 0; i < workouts.length; i++) {
+            LocalDateTime local = weekStart.plus(minuteOfWeek[i], ChronoUnit.MINUTES);
+            startMillis[i] = ZonedDateTime.of(local, zone).toInstant().toEpochMilli();
+            order[i] = i;
+        }
+        // Times moved out of a gap can overtake the ones just after it
+        Arrays.sort(order, (a, b) -> Long.compare(startMillis[a], startMillis[b]));
+        int[] byTime = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            byTime[i] = order[i];
+        }
+        return new Week(startMillis, byTime);
+    }
+}
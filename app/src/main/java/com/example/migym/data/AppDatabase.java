@@ -5,43 +5,187 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.annotation.NonNull;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import com.example.migym.models.User;
 import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutFts;
+import com.example.migym.models.WorkoutLog;
+import com.example.migym.models.WorkoutTag;
+import com.example.migym.models.WorkoutTagCrossRef;
 import com.example.migym.models.DateConverter;
 import com.example.migym.utils.TimestampConverter;
 import com.example.migym.data.converters.UserPreferencesConverter;
+import com.example.migym.utils.AppExecutors;
+import java.util.concurrent.Executor;
 
-@Database(entities = {Workout.class, User.class}, version = 1, exportSchema = false)
+@Database(entities = {Workout.class, User.class, WorkoutLog.class, WorkoutFts.class,
+        WorkoutTag.class, WorkoutTagCrossRef.class}, version = 8, exportSchema = true)
 @TypeConverters({DateConverter.class, TimestampConverter.class, UserPreferencesConverter.class})
 public abstract class AppDatabase extends RoomDatabase {
     private static final String DATABASE_NAME = "migym_db";
     private static AppDatabase instance;
+    private Executor writeExecutor;
 
     public abstract WorkoutDao workoutDao();
     public abstract UserDao userDao();
+    public abstract WorkoutLogDao workoutLogDao();
+    public abstract WorkoutTagDao workoutTagDao();
 
-    private static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+    // Adds the integer start_minute_of_week column, backfilled from the "HH:mm" time string
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
         @Override
         public void migrate(SupportSQLiteDatabase database) {
-            database.execSQL("ALTER TABLE workouts ADD COLUMN notification_time INTEGER NOT NULL DEFAULT 0");
-            database.execSQL("ALTER TABLE workouts ADD COLUMN notification_enabled INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE workouts ADD COLUMN start_minute_of_week INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("UPDATE workouts SET start_minute_of_week = day_of_week * 1440 + "
+                    + "CASE WHEN instr(time, ':') > 1 THEN "
+                    + "CAST(substr(time, 1, instr(time, ':') - 1) AS INTEGER) * 60 "
+                    + "+ CAST(substr(time, instr(time, ':') + 1) AS INTEGER) "
+                    + "ELSE 0 END");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_workouts_day_of_week_start_minute_of_week "
+                    + "ON workouts (day_of_week, start_minute_of_week)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_workouts_start_minute_of_week "
+                    + "ON workouts (start_minute_of_week)");
         }
     };
 
+    // Adds the append-only workout_log history table
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `workout_log` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`workout_id` TEXT NOT NULL, "
+                    + "`performed_at` INTEGER NOT NULL, "
+                    + "`duration` INTEGER NOT NULL, "
+                    + "`performance` INTEGER NOT NULL, "
+                    + "`distance` REAL NOT NULL, "
+                    + "`speed` REAL NOT NULL)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_log_workout_id_performed_at` "
+                    + "ON `workout_log` (`workout_id`, `performed_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_log_performed_at` "
+                    + "ON `workout_log` (`performed_at`)");
+        }
+    };
+
+    // Adds the workouts_fts full-text index. Room recreates the content sync triggers after
+    // every migration, so only the table is created here and then filled from workouts.
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `workouts_fts` USING FTS4("
+                    + "`name` TEXT, `description` TEXT, `instructor` TEXT, `notes` TEXT, `equipment` TEXT, "
+                    + "content=`workouts`)");
+            database.execSQL("INSERT INTO workouts_fts(workouts_fts) VALUES('rebuild')");
+        }
+    };
+
+    // Adds the muscle group / equipment catalogue, its join table and the mask columns
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE workouts ADD COLUMN muscle_mask INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE workouts ADD COLUMN equipment_mask INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `workout_tags` ("
+                    + "`id` INTEGER NOT NULL, `kind` INTEGER NOT NULL, `bit` INTEGER NOT NULL, "
+                    + "`name` TEXT NOT NULL, PRIMARY KEY(`id`))");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_workout_tags_kind_name` "
+                    + "ON `workout_tags` (`kind`, `name`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `workout_tag_cross_ref` ("
+                    + "`workout_id` TEXT NOT NULL, `tag_id` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`workout_id`, `tag_id`))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_tag_cross_ref_tag_id` "
+                    + "ON `workout_tag_cross_ref` (`tag_id`)");
+            WorkoutTagSql.seedCatalogue(database);
+            WorkoutTagSql.createTriggers(database);
+            WorkoutTagSql.backfillMasks(database);
+        }
+    };
+
+    // Adds the row version and last write time used to diff lists cheaply
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE workouts ADD COLUMN version INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE workouts ADD COLUMN updated_at INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // day_of_week counts from Monday as 0. Rows saved with the old 1-7 numbering can only be
+    // told apart when they are on Sunday, stored as 7, so those move to 6.
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("UPDATE workouts SET day_of_week = 6, "
+                    + "start_minute_of_week = 6 * 1440 + start_minute_of_week % 1440 "
+                    + "WHERE day_of_week = 7");
+        }
+    };
+
+    // Indexes duration, so the conflict check reads the longest workout without a table scan
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_workouts_duration` ON `workouts` (`duration`)");
+        }
+    };
+
+    // Fresh installs get the catalogue rows and triggers that Room does not create itself
+    private static final Callback TAG_SCHEMA_CALLBACK = new Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            WorkoutTagSql.seedCatalogue(db);
+            WorkoutTagSql.createTriggers(db);
+        }
+    };
+
+    /**
+     * Every schema change, oldest first. A version bump must add its migration here:
+     * there is no destructive fallback, so a missing step fails on open instead of
+     * silently wiping the user's data.
+     */
+    static final Migration[] ALL_MIGRATIONS = {
+            MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+            MIGRATION_7_8
+    };
+
     public static synchronized AppDatabase getInstance(Context context) {
         if (instance == null) {
-            instance = Room.databaseBuilder(
-                    context.getApplicationContext(),
-                    AppDatabase.class,
-                    DATABASE_NAME)
-                    .fallbackToDestructiveMigration()
+            Executor writes = QueryMetrics.getInstance().instrument(AppExecutors.getInstance().diskWrite());
+            instance = newBuilder(context, DATABASE_NAME)
+                    .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                    // WAL lets readers run alongside the single writer, so reads get a pool of their own
+                    .setQueryExecutor(QueryMetrics.getInstance().instrument(
+                            AppExecutors.getInstance().diskIO()))
+                    .setTransactionExecutor(writes)
+                    // Runs inline so the callback sees the thread that executes the statement
+                    .setQueryCallback(QueryMetrics.getInstance(), Runnable::run)
                     .build();
+            instance.writeExecutor = writes;
         }
         return instance;
     }
 
+    /**
+     * Serial executor with a bounded queue for repository writes. Room wraps its
+     * transaction executor in an unbounded queue of its own, so writes are submitted
+     * here to keep the pool's bound.
+     */
+    public Executor getWriteExecutor() {
+        // Databases built without getInstance, such as in tests, only have Room's
+        return writeExecutor != null ? writeExecutor : getTransactionExecutor();
+    }
+
+    /**
+     * Schema setup shared by the app and the migration tests
+     */
+    static Builder<AppDatabase> newBuilder(Context context, String name) {
+        return Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, name)
+                .addMigrations(ALL_MIGRATIONS)
+                .addCallback(TAG_SCHEMA_CALLBACK);
+    }
+
     public static synchronized void destroyInstance() {
         instance = null;
     }
@@ -0,0 +1,221 @@
+package com.example.migym.data;
+
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records per-statement latency histograms for the Room database.
+ * <p>
+ * Room's {@link RoomDatabase.QueryCallback} runs on the executing thread just before each
+ * statement. Database work is run through {@link #instrument(Executor)}, which opens a
+ * timing scope per task: a statement is timed until the next statement on the same thread
+ * or the end of the task. Statements issued outside a scope are only counted.
+ */
+public final class QueryMetrics implements RoomDatabase.QueryCallback {
+    private static final String TAG = "QueryMetrics";
+    private static final QueryMetrics INSTANCE = new QueryMetrics();
+
+    // Upper bounds in milliseconds; the last bucket holds everything slower
+    private static final long[] BUCKET_LIMITS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ThreadLocal<Scope> scopes = new ThreadLocal<>();
+
+    private QueryMetrics() {
+    }
+
+    public static QueryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void onQuery(@NonNull String sqlQuery, @NonNull List<?> bindArgs) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        Scope scope = scopes.get();
+        if (scope == null) {
+            histogramFor(sqlQuery).countUntimed();
+            return;
+        }
+        scope.finishCurrent(now);
+        scope.currentSql = sqlQuery;
+        scope.startNanos = now;
+    }
+
+    /**
+     * Wraps an executor so every task it runs is a timing scope for the statements it issues
+     */
+    @NonNull
+    public Executor instrument(@NonNull Executor delegate) {
+        return command -> delegate.execute(() -> {
+            Scope previous = scopes.get();
+            Scope scope = new Scope();
+            scopes.set(scope);
+            try {
+                command.run();
+            } finally {
+                scope.finishCurrent(SystemClock.elapsedRealtimeNanos());
+                scopes.set(previous);
+            }
+        });
+    }
+
+    /**
+     * @return Per-statement statistics, slowest total time first
+     */
+    @NonNull
+    public List<QueryStats> snapshot() {
+        List<QueryStats> stats = new ArrayList<>(histograms.size());
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            stats.add(entry.getValue().toStats(entry.getKey()));
+        }
+        Collections.sort(stats, (a, b) -> Long.compare(b.getTotalMillis(), a.getTotalMillis()));
+        return stats;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    public void logSummary() {
+        for (QueryStats stats : snapshot()) {
+            Log.d(TAG, stats.toString());
+        }
+    }
+
+    private Histogram histogramFor(String sql) {
+        Histogram histogram = histograms.get(sql);
+        if (histogram == null) {
+            histogram = new Histogram();
+            Histogram existing = histograms.putIfAbsent(sql, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    private final class Scope {
+        String currentSql;
+        long startNanos;
+
+        void finishCurrent(long nowNanos) {
+            if (currentSql != null) {
+                histogramFor(currentSql).record(nowNanos - startNanos);
+                currentSql = null;
+            }
+        }
+    }
+
+    private static final class Histogram {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LIMITS_MS.length + 1);
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLong untimed = new AtomicLong();
+
+        void record(long nanos) {
+            long millis = nanos / 1_000_000L;
+            int bucket = 0;
+            while (bucket < BUCKET_LIMITS_MS.length && millis >= BUCKET_LIMITS_MS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            totalNanos.addAndGet(nanos);
+            long max;
+            do {
+                max = maxNanos.get();
+            } while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+        }
+
+        void countUntimed() {
+            untimed.incrementAndGet();
+        }
+
+        QueryStats toStats(String sql) {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return new QueryStats(sql, counts, totalNanos.get(), maxNanos.get(), untimed.get());
+        }
+    }
+
+    /**
+     * Immutable latency statistics for one SQL statement
+     */
+    public static final class QueryStats {
+        private final String sql;
+        private final long[] bucketCounts;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long untimedCount;
+
+        QueryStats(String sql, long[] bucketCounts, long totalNanos, long maxNanos, long untimedCount) {
+            this.sql = sql;
+            this.bucketCounts = bucketCounts;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.untimedCount = untimedCount;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getTimedCount() {
+            long count = 0;
+            for (long bucketCount : bucketCounts) {
+                count += bucketCount;
+            }
+            return count;
+        }
+
+        public long getUntimedCount() {
+            return untimedCount;
+        }
+
+        public long getTotalMillis() {
+            return totalNanos / 1_000_000L;
+        }
+
+        public long getMaxMillis() {
+            return maxNanos / 1_000_000L;
+        }
+
+        /**
+         * Approximate latency percentile, reported as the upper bound of its bucket
+         * @param percentile Value between 0 and 100
+         */
+        public long getPercentileMillis(double percentile) {
+            long count = getTimedCount();
+            if (count == 0) return 0;
+            long target = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= target) {
+                    return i < BUCKET_LIMITS_MS.length ? BUCKET_LIMITS_MS[i] : getMaxMillis();
+                }
+            }
+            return getMaxMillis();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "count=" + getTimedCount() + " untimed=" + untimedCount
+                    + " total=" + getTotalMillis() + "ms p50<=" + getPercentileMillis(50)
+                    + "ms p95<=" + getPercentileMillis(95) + "ms max=" + getMaxMillis()
+                    + "ms sql=" + sql;
+        }
+    }
+}
@@ -1,41 +1,252 @@
 package com.example.migym.data;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.room.Upsert;
 import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutReminder;
+import com.example.migym.models.WorkoutSummary;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Dao
 public interface WorkoutDao {
-    @Query("SELECT * FROM workouts ORDER BY day_of_week ASC, time ASC")
+    // Ids per IN (...) list, below SQLite's 999 variable limit on older devices
+    int MAX_IDS_PER_QUERY = 500;
+
+    /**
+     * Version currently stored for a row
+     */
+    class StoredVersion {
+        @NonNull
+        public String id = "";
+        public int version;
+    }
+
+    @Query("SELECT * FROM workouts ORDER BY day_of_week ASC, start_minute_of_week ASC")
     LiveData<List<Workout>> getAllWorkouts();
 
-    @Query("SELECT * FROM workouts ORDER BY day_of_week ASC, time ASC")
+    @Query("SELECT * FROM workouts ORDER BY day_of_week ASC, start_minute_of_week ASC")
     List<Workout> getAllWorkoutsSync();
 
+    @Query("SELECT id FROM workouts")
+    List<String> getAllWorkoutIdsSync();
+
+    @Query("SELECT " + WorkoutSummary.COLUMNS + " FROM workouts ORDER BY day_of_week ASC, start_minute_of_week ASC")
+    PagingSource<Integer, WorkoutSummary> getWorkoutSummariesPaged();
+
+    @Query("SELECT " + WorkoutSummary.COLUMNS + " FROM workouts WHERE day_of_week = :dayOfWeek ORDER BY start_minute_of_week ASC")
+    List<WorkoutSummary> getWorkoutSummariesByDaySync(int dayOfWeek);
+
+    /**
+     * Workouts that include every bit of both masks. The rarest of the given tags drives
+     * the lookup through the workout_tag_cross_ref tag_id index; the masks only filter the
+     * rows it finds. Masks are built with {@link com.example.migym.models.WorkoutTag#maskOf}.
+     * @param tagIds Ids of the tags in both masks, see {@link com.example.migym.models.WorkoutTag#idsOf}; not empty
+     */
+    @Query("SELECT " + WorkoutSummary.COLUMNS + " FROM workouts "
+            + "WHERE id IN (SELECT workout_id FROM workout_tag_cross_ref WHERE tag_id = "
+            + "(SELECT tag_id FROM workout_tag_cross_ref WHERE tag_id IN (:tagIds) "
+            + "GROUP BY tag_id ORDER BY COUNT(*) ASC LIMIT 1)) "
+            + "AND (muscle_mask & :muscleMask) = :muscleMask AND (equipment_mask & :equipmentMask) = :equipmentMask "
+            + "ORDER BY day_of_week ASC, start_minute_of_week ASC")
+    LiveData<List<WorkoutSummary>> getWorkoutSummariesWithAllTags(List<Integer> tagIds, long muscleMask,
+                                                                  long equipmentMask);
+
+    @Query("SELECT " + WorkoutSummary.COLUMNS + " FROM workouts ORDER BY day_of_week ASC, start_minute_of_week ASC")
+    LiveData<List<WorkoutSummary>> getAllWorkoutSummaries();
+
+    /**
+     * Workouts that train at least one of the given muscle groups, looked up by tag_id
+     * @param tagIds Ids of the muscle group tags, see {@link com.example.migym.models.WorkoutTag#idsOf}
+     */
+    @Query("SELECT " + WorkoutSummary.COLUMNS + " FROM workouts "
+            + "WHERE id IN (SELECT workout_id FROM workout_tag_cross_ref WHERE tag_id IN (:tagIds)) "
+            + "ORDER BY day_of_week ASC, start_minute_of_week ASC")
+    LiveData<List<WorkoutSummary>> getWorkoutSummariesWithAnyMuscle(List<Integer> tagIds);
+
+    /**
+     * Full-text search through the workouts_fts index.
+     * Workouts whose name starts with the typed text come first, then those with more matching words.
+     * offsets() lists four space-separated integers per matched term, so the number of
+     * terms is (spaces + 1) / 4.
+     * @param match FTS MATCH expression, see {@link com.example.migym.models.WorkoutFts#toPrefixQuery}
+     * @param namePrefix LIKE pattern for the name boost, see {@link com.example.migym.models.WorkoutFts#toLikePrefix}
+     */
+    @Query("SELECT " + WorkoutSummary.COLUMNS + " FROM workouts "
+            + "JOIN (SELECT docid, offsets(workouts_fts) AS offs FROM workouts_fts "
+            + "WHERE workouts_fts MATCH :match) AS matches ON workouts.rowid = matches.docid "
+            + "ORDER BY (name LIKE :namePrefix ESCAPE '\\') DESC, "
+            + "(length(matches.offs) - length(replace(matches.offs, ' ', '')) + 1) / 4 DESC, "
+            + "day_of_week ASC, start_minute_of_week ASC "
+            + "LIMIT :limit")
+    LiveData<List<WorkoutSummary>> searchWorkoutSummaries(String match, String namePrefix, int limit);
+
+    @Query("SELECT " + WorkoutReminder.COLUMNS + " FROM workouts WHERE notification_enabled = 1")
+    List<WorkoutReminder> getEnabledRemindersSync();
+
     @Query("SELECT * FROM workouts WHERE id = :workoutId")
     LiveData<Workout> getWorkoutById(String workoutId);
 
-    @Query("SELECT * FROM workouts WHERE day_of_week = :dayOfWeek")
+    @Query("SELECT * FROM workouts WHERE day_of_week = :dayOfWeek ORDER BY start_minute_of_week ASC")
     List<Workout> getWorkoutsByDaySync(int dayOfWeek);
 
-    @Query("SELECT * FROM workouts WHERE day_of_week = :dayOfWeek AND time = :time")
-    List<Workout> getWorkoutsAtTimeSync(int dayOfWeek, String time);
+    @Query("SELECT * FROM workouts WHERE day_of_week = :dayOfWeek AND start_minute_of_week = :startMinuteOfWeek")
+    List<Workout> getWorkoutsAtMinuteSync(int dayOfWeek, int startMinuteOfWeek);
+
+    @Query("SELECT * FROM workouts WHERE start_minute_of_week >= :fromMinute AND start_minute_of_week < :toMinute ORDER BY start_minute_of_week ASC")
+    List<Workout> getWorkoutsStartingBetweenSync(int fromMinute, int toMinute);
+
+    @Query("SELECT COUNT(*) FROM workouts WHERE id = :workoutId")
+    int countById(String workoutId);
+
+    // A bare MAX lets SQLite read it from the end of the duration index
+    @Query("SELECT MAX(duration) FROM workouts")
+    Integer getMaxDurationSync();
+
+    @Query("SELECT id, version FROM workouts WHERE id IN (:workoutIds)")
+    List<StoredVersion> getStoredVersionsSync(List<String> workoutIds);
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    long insert(Workout workout);
+    // Row writes go through the default methods below, which stamp the version first
+
+    // ABORT, not REPLACE: a REPLACE delete skips the workouts_fts delete trigger and leaves
+    // a stale search row. Existing rows go through update or upsert instead.
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    long insertRow(Workout workout);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertRows(List<Workout> workouts);
+
+    @Upsert
+    void upsertRows(List<Workout> workouts);
 
     @Update
-    void update(Workout workout);
+    void updateRow(Workout workout);
+
+    @Transaction
+    default long insert(Workout workout) {
+        markWritten(Collections.singletonList(workout));
+        return insertRow(workout);
+    }
+
+    @Transaction
+    default long[] insertAll(List<Workout> workouts) {
+        markWritten(workouts);
+        return insertRows(workouts);
+    }
+
+    @Transaction
+    default void upsertAll(List<Workout> workouts) {
+        markWritten(workouts);
+        upsertRows(workouts);
+    }
+
+    @Transaction
+    default void update(Workout workout) {
+        markWritten(Collections.singletonList(workout));
+        updateRow(workout);
+    }
+
+    /**
+     * Sets each workout's version to one past the row already stored, so the version
+     * counts writes to the row rather than to the object. Objects built from Firestore or
+     * an import start at 0 and would otherwise repeat a stored version. Must run in the
+     * same transaction as the write.
+     */
+    default void markWritten(List<Workout> workouts) {
+        Map<String, Integer> stored = new HashMap<>();
+        for (int from = 0; from < workouts.size(); from += MAX_IDS_PER_QUERY) {
+            List<String> ids = new ArrayList<>();
+            for (Workout workout : workouts.subList(from, Math.min(workouts.size(), from + MAX_IDS_PER_QUERY))) {
+                ids.add(workout.getId());
+            }
+            for (StoredVersion row : getStoredVersionsSync(ids)) {
+                stored.put(row.id, row.version);
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (Workout workout : workouts) {
+            Integer version = stored.get(workout.getId());
+            workout.markWritten((version != null ? version : workout.getVersion()) + 1, now);
+        }
+    }
 
     @Delete
     void delete(Workout workout);
 
+    @Query("DELETE FROM workouts WHERE id = :workoutId")
+    int deleteById(String workoutId);
+
+    /**
+     * Deletes several workouts at once. Callers should keep the list below
+     * SQLite's bound variable limit (999).
+     */
+    @Query("DELETE FROM workouts WHERE id IN (:workoutIds)")
+    int deleteByIds(List<String> workoutIds);
+
     @Query("DELETE FROM workouts")
     void deleteAll();
-} 
\ No newline at end of file
+
+    /**
+     * Finds stored workouts overlapping the given one using the start minute index.
+     * Only rows starting less than the longest stored duration before the workout can overlap it.
+     */
+    default List<Workout> findOverlappingSync(Workout workout) {
+        int start = WorkoutIntervalIndex.startOf(workout);
+        int end = start + WorkoutIntervalIndex.lengthOf(workout);
+        Integer maxDuration = getMaxDurationSync();
+        int lookBack = Math.max(1, maxDuration != null ? maxDuration : 0);
+        List<Workout> overlapping = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        // Stored values are not normalized to one week, so check the neighbouring weeks too
+        for (int shift = -Workout.MINUTES_PER_WEEK; shift <= Workout.MINUTES_PER_WEEK; shift += Workout.MINUTES_PER_WEEK) {
+            for (Workout existing : getWorkoutsStartingBetweenSync(start - lookBack + 1 + shift, end + shift)) {
+                if (workout.hasTimeConflict(existing) && seen.add(existing.getId())) {
+                    overlapping.add(existing);
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Checks for overlapping workouts and inserts or updates in a single transaction,
+     * so two concurrent writes cannot both pass the check.
+     * @param workout Workout to save. A missing id is generated and the row inserted.
+     * @param force Save even if the workout overlaps others
+     * @return The outcome of the write, including any overlapping workouts
+     */
+    @Transaction
+    default WorkoutWriteResult saveIfNoConflict(Workout workout, boolean force) {
+        boolean isNew = workout.getId() == null || workout.getId().isEmpty();
+        if (isNew) {
+            workout.setId(UUID.randomUUID().toString());
+        }
+
+        List<Workout> conflicts = findOverlappingSync(workout);
+        if (!conflicts.isEmpty() && !force) {
+            return WorkoutWriteResult.conflict(workout, conflicts);
+        }
+
+        if (!isNew && countById(workout.getId()) > 0) {
+            update(workout);
+            return WorkoutWriteResult.updated(workout, conflicts);
+        }
+        insert(workout);
+        return WorkoutWriteResult.inserted(workout, conflicts);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.migym.data;
+
+import androidx.annotation.NonNull;
+import com.example.migym.models.Workout;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of a bulk timetable import.
+ */
+public final class WorkoutImportResult {
+    private final int processedCount;
+    private final int savedCount;
+    private final Map<Workout, List<Workout>> skippedConflicts;
+    private final Map<Workout, List<Workout>> importedConflicts;
+
+    public WorkoutImportResult(int processedCount, int savedCount,
+                               @NonNull Map<Workout, List<Workout>> skippedConflicts,
+                               @NonNull Map<Workout, List<Workout>> importedConflicts) {
+        this.processedCount = processedCount;
+        this.savedCount = savedCount;
+        this.skippedConflicts = Collections.unmodifiableMap(skippedConflicts);
+        this.importedConflicts = Collections.unmodifiableMap(importedConflicts);
+    }
+
+    public int getProcessedCount() {
+        return processedCount;
+    }
+
+    public int getSavedCount() {
+        return savedCount;
+    }
+
+    /**
+     * Workouts that were not saved because they overlap stored or previously imported
+     * workouts, with the workouts they overlap
+     */
+    @NonNull
+    public Map<Workout, List<Workout>> getSkippedConflicts() {
+        return skippedConflicts;
+    }
+
+    /**
+     * Workouts imported although they overlap others, when conflicts are not skipped
+     */
+    @NonNull
+    public Map<Workout, List<Workout>> getImportedConflicts() {
+        return importedConflicts;
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.migym.data;
+
+import androidx.annotation.NonNull;
+import com.example.migym.models.Workout;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable interval index over one week of workouts.
+ * Each workout occupies [start, start + duration) in minutes of the week. Intervals are
+ * kept sorted by start in an implicit balanced tree augmented with the maximum end of
+ * each subtree, so overlap queries only visit branches that can contain a match.
+ */
+public final class WorkoutIntervalIndex {
+    private static final WorkoutIntervalIndex EMPTY =
+            new WorkoutIntervalIndex(new int[0], new int[0], new Workout[0]);
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds;
+    private final Workout[] workouts;
+
+    private WorkoutIntervalIndex(int[] starts, int[] ends, Workout[] workouts) {
+        this.starts = starts;
+        this.ends = ends;
+        this.workouts = workouts;
+        this.maxEnds = new int[starts.length];
+        buildMaxEnds(0, starts.length);
+    }
+
+    public static WorkoutIntervalIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds an index from the given workouts
+     * @param source Workouts to index
+     * @return A new index, or the empty index if there are no workouts
+     */
+    public static WorkoutIntervalIndex build(Collection<Workout> source) {
+        if (source == null || source.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<Interval> intervals = new ArrayList<>(source.size() + 8);
+        for (Workout workout : source) {
+            if (workout == null) continue;
+            int start = startOf(workout);
+            int end = start + lengthOf(workout);
+            intervals.add(new Interval(start, end, workout));
+            // Workouts that run past the end of the week also occupy the start of it
+            if (end > Workout.MINUTES_PER_WEEK) {
+                intervals.add(new Interval(start - Workout.MINUTES_PER_WEEK,
+                        end - Workout.MINUTES_PER_WEEK, workout));
+            }
+        }
+        if (intervals.isEmpty()) {
+            return EMPTY;
+        }
+        Collections.sort(intervals, Comparator.comparingInt(interval -> interval.start));
+
+        int size = intervals.size();
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        Workout[] workouts = new Workout[size];
+        for (int i = 0; i < size; i++) {
+            Interval interval = intervals.get(i);
+            starts[i] = interval.start;
+            ends[i] = interval.end;
+            workouts[i] = interval.workout;
+        }
+        return new WorkoutIntervalIndex(starts, ends, workouts);
+    }
+
+    /**
+     * Normalized start of a workout in minutes of the week
+     */
+    public static int startOf(Workout workout) {
+        return Math.floorMod(workout.getStartMinuteOfWeek(), Workout.MINUTES_PER_WEEK);
+    }
+
+    /**
+     * Length of a workout in minutes. Workouts without a duration still block their start minute.
+     */
+    public static int lengthOf(Workout workout) {
+        return Math.max(1, workout.getDuration());
+    }
+
+    public int size() {
+        return workouts.length;
+    }
+
+    public boolean isEmpty() {
+        return workouts.length == 0;
+    }
+
+    /**
+     * Finds all workouts overlapping the half-open interval [start, end)
+     * @param start Start in minutes of the week
+     * @param end End in minutes of the week, exclusive
+     * @return Overlapping workouts ordered by start
+     */
+    @NonNull
+    public List<Workout> findOverlapping(int start, int end) {
+        if (workouts.length == 0 || end <= start) {
+            return new ArrayList<>();
+        }
+        List<Workout> result = new ArrayList<>();
+        collect(0, workouts.length, start, end, result);
+        if (end > Workout.MINUTES_PER_WEEK) {
+            collect(0, workouts.length, start - Workout.MINUTES_PER_WEEK,
+                    end - Workout.MINUTES_PER_WEEK, result);
+            result = distinct(result);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the workouts that overlap the given one, ignoring entries with the same id
+     * @param candidate The workout to check
+     * @return Conflicting workouts ordered by start
+     */
+    @NonNull
+    public List<Workout> findConflicts(@NonNull Workout candidate) {
+        int start = startOf(candidate);
+        List<Workout> overlapping = findOverlapping(start, start + lengthOf(candidate));
+        List<Workout> conflicts = new ArrayList<>(overlapping.size());
+        for (Workout workout : overlapping) {
+            if (!isSameWorkout(workout, candidate)) {
+                conflicts.add(workout);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Checks each candidate against the index, one overlap query per candidate
+     * @param candidates Workouts to check
+     * @return Conflicts for each candidate that has any, in candidate order
+     */
+    @NonNull
+    public Map<Workout, List<Workout>> findConflicts(@NonNull Collection<Workout> candidates) {
+        Map<Workout, List<Workout>> result = new LinkedHashMap<>();
+        for (Workout candidate : candidates) {
+            if (candidate == null) continue;
+            List<Workout> conflicts = findConflicts(candidate);
+            if (!conflicts.isEmpty()) {
+                result.put(candidate, conflicts);
+            }
+        }
+        return result;
+    }
+
+    private void collect(int lo, int hi, int start, int end, List<Workout> out) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (maxEnds[mid] <= start) return;
+        collect(lo, mid, start, end, out);
+        if (starts[mid] >= end) return;
+        if (ends[mid] > start) {
+            out.add(workouts[mid]);
+        }
+        collect(mid + 1, hi, start, end, out);
+    }
+
+    private int buildMaxEnds(int lo, int hi) {
+        if (lo >= hi) return Integer.MIN_VALUE;
+        int mid = (lo + hi) >>> 1;
+        int max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    private static boolean isSameWorkout(Workout a, Workout b) {
+        if (a == b) return true;
+        String id = b.getId();
+        return id != null && !id.isEmpty() && id.equals(a.getId());
+    }
+
+    private static List<Workout> distinct(List<Workout> workouts) {
+        Set<Workout> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Workout> result = new ArrayList<>(workouts.size());
+        for (Workout workout : workouts) {
+            if (seen.add(workout)) {
+                result.add(workout);
+            }
+        }
+        Collections.sort(result, Comparator.comparingInt(WorkoutIntervalIndex::startOf));
+        return result;
+    }
+
+    /**
+     * Index that takes workouts in batches, for imports checked chunk by chunk.
+     * Batches are kept in immutable indexes of decreasing size; a new batch is merged with
+     * every index not larger than itself, so each workout is re-indexed O(log n) times in
+     * total and a query visits O(log n) indexes.
+     */
+    public static final class Growing {
+        private final List<List<Workout>> levels = new ArrayList<>();
+        private final List<WorkoutIntervalIndex> indexes = new ArrayList<>();
+
+        public void addAll(@NonNull Collection<Workout> batch) {
+            if (batch.isEmpty()) return;
+            List<Workout> merged = new ArrayList<>(batch);
+            while (!indexes.isEmpty() && levels.get(levels.size() - 1).size() <= merged.size()) {
+                merged.addAll(levels.remove(levels.size() - 1));
+                indexes.remove(indexes.size() - 1);
+            }
+            levels.add(merged);
+            indexes.add(build(merged));
+        }
+
+        /**
+         * Same as {@link WorkoutIntervalIndex#findConflicts(Collection)} over every batch added so far
+         */
+        @NonNull
+        public Map<Workout, List<Workout>> findConflicts(@NonNull Collection<Workout> candidates) {
+            Map<Workout, List<Workout>> result = new LinkedHashMap<>();
+            for (WorkoutIntervalIndex index : indexes) {
+                for (Map.Entry<Workout, List<Workout>> entry : index.findConflicts(candidates).entrySet()) {
+                    List<Workout> conflicts = result.get(entry.getKey());
+                    if (conflicts == null) {
+                        result.put(entry.getKey(), entry.getValue());
+                    } else {
+                        conflicts.addAll(entry.getValue());
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Interval {
+        final int start;
+        final int end;
+        final Workout workout;
+
+        Interval(int start, int end, Workout workout) {
+            this.start = start;
+            this.end = end;
+            this.workout = workout;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.migym.data;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import com.example.migym.models.WorkoutLog;
+import java.util.List;
+
+/**
+ * Append-only access to the workout history. Ranges are half-open: [from, to).
+ */
+@Dao
+public interface WorkoutLogDao {
+    @Insert
+    long insert(WorkoutLog log);
+
+    @Insert
+    void insertAll(List<WorkoutLog> logs);
+
+    @Query("SELECT * FROM workout_log WHERE performed_at >= :from AND performed_at < :to ORDER BY performed_at ASC")
+    LiveData<List<WorkoutLog>> getLogsBetween(long from, long to);
+
+    @Query("SELECT * FROM workout_log WHERE performed_at >= :from AND performed_at < :to ORDER BY performed_at ASC")
+    List<WorkoutLog> getLogsBetweenSync(long from, long to);
+
+    @Query("SELECT * FROM workout_log WHERE workout_id = :workoutId AND performed_at >= :from AND performed_at < :to ORDER BY performed_at ASC")
+    List<WorkoutLog> getLogsForWorkoutBetweenSync(String workoutId, long from, long to);
+
+    @Query("SELECT * FROM workout_log WHERE workout_id = :workoutId ORDER BY performed_at DESC LIMIT 1")
+    WorkoutLog getLatestLogSync(String workoutId);
+
+    @Query("SELECT COUNT(*) FROM workout_log WHERE performed_at >= :from AND performed_at < :to")
+    int countBetweenSync(long from, long to);
+
+    @Query("SELECT COUNT(*) FROM workout_log WHERE workout_id = :workoutId AND performed_at >= :from AND performed_at < :to")
+    int countForWorkoutBetweenSync(String workoutId, long from, long to);
+
+    @Query("SELECT COALESCE(SUM(distance), 0) FROM workout_log WHERE performed_at >= :from AND performed_at < :to")
+    double getTotalDistanceBetweenSync(long from, long to);
+
+    @Query("DELETE FROM workout_log WHERE workout_id = :workoutId")
+    int deleteForWorkout(String workoutId);
+}
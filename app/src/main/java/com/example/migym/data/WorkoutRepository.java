@@ -2,20 +2,39 @@ package com.example.migym.data;
 
 import android.app.Application;
 import android.util.Log;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutFts;
+import com.example.migym.models.WorkoutSummary;
+import com.example.migym.models.WorkoutTag;
+import com.example.migym.utils.Futures;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class WorkoutRepository {
     private static final String TAG = "WorkoutRepository";
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 15;
+    private static final int MAX_LOADED_ITEMS = 200;
+    private static final int SEARCH_LIMIT = 50;
     private final WorkoutDao workoutDao;
+    private final WorkoutScheduleStore scheduleStore;
     private final LiveData<List<Workout>> allWorkouts;
-    private final ExecutorService executorService;
+    // Owned by the database, so writes from every repository are serialized
+    private final Executor writeExecutor;
+    private final Map<Integer, LiveData<List<Workout>>> workoutsByDay = new HashMap<>();
 
     public interface OnWorkoutsLoadedListener {
         void onWorkoutsLoaded(List<Workout> workouts);
@@ -27,11 +46,17 @@ public class WorkoutRepository {
         void onError(String error);
     }
 
+    public interface OnWorkoutSaveListener {
+        void onSaved(WorkoutWriteResult result);
+        void onError(String error);
+    }
+
     public WorkoutRepository(@NonNull Application application) {
         AppDatabase db = AppDatabase.getInstance(application);
         workoutDao = db.workoutDao();
+        scheduleStore = WorkoutScheduleStore.getInstance(db);
         allWorkouts = workoutDao.getAllWorkouts();
-        executorService = Executors.newSingleThreadExecutor();
+        writeExecutor = db.getWriteExecutor();
     }
 
     @NonNull
@@ -39,11 +64,71 @@ public class WorkoutRepository {
         return allWorkouts;
     }
 
+    /**
+     * Workouts ordered by schedule, loaded a page at a time. At most
+     * MAX_LOADED_ITEMS rows are held in memory; the rest are placeholders.
+     */
+    @NonNull
+    public LiveData<PagingData<WorkoutSummary>> getPagedWorkouts() {
+        PagingConfig config = new PagingConfig(PAGE_SIZE, PREFETCH_DISTANCE, true, PAGE_SIZE * 2, MAX_LOADED_ITEMS);
+        Pager<Integer, WorkoutSummary> pager = new Pager<>(config, workoutDao::getWorkoutSummariesPaged);
+        return PagingLiveData.getLiveData(pager);
+    }
+
+    /**
+     * Searches name, description, instructor, notes and equipment by word prefix.
+     * Text without searchable words gives an empty list.
+     */
+    @NonNull
+    public LiveData<List<WorkoutSummary>> searchWorkouts(String text) {
+        String match = WorkoutFts.toPrefixQuery(text);
+        if (match == null) {
+            return new MutableLiveData<>(new ArrayList<>());
+        }
+        return workoutDao.searchWorkoutSummaries(match, WorkoutFts.toLikePrefix(text.trim()), SEARCH_LIMIT);
+    }
+
+    /**
+     * Workouts tagged with every selected muscle group and piece of equipment
+     * @param muscleMask Bits of {@link com.example.migym.models.WorkoutTag#KIND_MUSCLE_GROUP} tags, 0 for any
+     * @param equipmentMask Bits of {@link com.example.migym.models.WorkoutTag#KIND_EQUIPMENT} tags, 0 for any
+     */
+    @NonNull
+    public LiveData<List<WorkoutSummary>> getWorkoutsWithTags(long muscleMask, long equipmentMask) {
+        List<Integer> tagIds = WorkoutTag.idsOf(WorkoutTag.KIND_MUSCLE_GROUP, muscleMask);
+        tagIds.addAll(WorkoutTag.idsOf(WorkoutTag.KIND_EQUIPMENT, equipmentMask));
+        if (tagIds.isEmpty()) {
+            return workoutDao.getAllWorkoutSummaries();
+        }
+        return workoutDao.getWorkoutSummariesWithAllTags(tagIds, muscleMask, equipmentMask);
+    }
+
     public LiveData<Workout> getWorkoutById(String id) {
         return workoutDao.getWorkoutById(id);
     }
 
-    public void insertWorkout(Workout workout, OnWorkoutOperationListener listener) {
+    /**
+     * Checks for conflicts and inserts or updates the workout in one database transaction
+     * @param workout Workout to save
+     * @param force Save even if it overlaps other workouts
+     * @return Future completed on the write thread; conflicts are a result, not an error
+     */
+    public CompletableFuture<WorkoutWriteResult> saveWorkout(@NonNull Workout workout, boolean force) {
+        return Futures.supplyAsync(writeExecutor, () -> scheduleStore.callWrite(() -> {
+            WorkoutWriteResult result = workoutDao.saveIfNoConflict(workout, force);
+            if (result.isSaved()) {
+                scheduleStore.onSaved(result.getWorkout());
+            } else {
+                Log.w(TAG, "Time conflict detected");
+            }
+            return result;
+        }));
+    }
+
+    /**
+     * Listener version of {@link #saveWorkout(Workout, boolean)}, called on the main thread
+     */
+    public void saveWorkout(Workout workout, boolean force, OnWorkoutSaveListener listener) {
         if (workout == null) {
             Log.e(TAG, "Error: workout is null");
             if (listener != null) {
@@ -52,38 +137,29 @@ public class WorkoutRepository {
             return;
         }
 
-        executorService.execute(() -> {
-            try {
-                // Check for time conflicts
-                List<Workout> conflicts = workoutDao.getWorkoutsAtTimeSync(workout.getDayOfWeek(), workout.getTime());
-                if (!conflicts.isEmpty()) {
-                    Log.w(TAG, "Time conflict detected");
-                    if (listener != null) {
-                        listener.onError("There is already a workout scheduled at this time");
-                    }
-                    return;
-                }
-
-                // Insert the workout
-                long id = workoutDao.insert(workout);
-                workout.setId(String.valueOf(id));
-                
-                if (listener != null) {
-                    listener.onSuccess(workout);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error inserting workout", e);
-                if (listener != null) {
-                    listener.onError("Error inserting workout: " + e.getMessage());
-                }
+        CompletableFuture<WorkoutWriteResult> future = saveWorkout(workout, force);
+        if (listener == null) return;
+        Futures.onMainThread(future, new Futures.Callback<WorkoutWriteResult>() {
+            @Override
+            public void onSuccess(WorkoutWriteResult result) {
+                listener.onSaved(result);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                Log.e(TAG, "Error saving workout", error);
+                listener.onError("Error saving workout: " + Futures.messageOf(error));
             }
         });
     }
 
     public void update(Workout workout) {
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
-                workoutDao.update(workout);
+                scheduleStore.runWrite(() -> {
+                    workoutDao.update(workout);
+                    scheduleStore.onSaved(workout);
+                });
             } catch (Exception e) {
                 Log.e(TAG, "Error updating workout", e);
             }
@@ -91,9 +167,25 @@ public class WorkoutRepository {
     }
 
     public void delete(Workout workout) {
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
+            try {
+                scheduleStore.runWrite(() -> {
+                    workoutDao.delete(workout);
+                    scheduleStore.onDeleted(workout.getId());
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error deleting workout", e);
+            }
+        });
+    }
+
+    public void deleteById(String workoutId) {
+        writeExecutor.execute(() -> {
             try {
-                workoutDao.delete(workout);
+                scheduleStore.runWrite(() -> {
+                    workoutDao.deleteById(workoutId);
+                    scheduleStore.onDeleted(workoutId);
+                });
             } catch (Exception e) {
                 Log.e(TAG, "Error deleting workout", e);
             }
@@ -101,9 +193,12 @@ public class WorkoutRepository {
     }
 
     public void deleteAll() {
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
-                workoutDao.deleteAll();
+                scheduleStore.runWrite(() -> {
+                    workoutDao.deleteAll();
+                    scheduleStore.onDeletedAll();
+                });
             } catch (Exception e) {
                 Log.e(TAG, "Error deleting all workouts", e);
             }
@@ -111,14 +206,27 @@ public class WorkoutRepository {
     }
 
     public List<Workout> getWorkoutsAtTimeSync(int dayOfWeek, String time) {
-        return workoutDao.getWorkoutsAtTimeSync(dayOfWeek, time);
+        return workoutDao.getWorkoutsAtMinuteSync(dayOfWeek, Workout.computeStartMinuteOfWeek(dayOfWeek, time));
     }
 
-    public LiveData<List<Workout>> getWorkoutsByDay(int dayOfWeek) {
-        return new MutableLiveData<>(workoutDao.getWorkoutsByDaySync(dayOfWeek));
+    public List<Workout> findConflictsSync(Workout workout) {
+        return scheduleStore.findConflicts(workout);
     }
 
-    public void cleanup() {
-        executorService.shutdown();
+    public Map<Workout, List<Workout>> findConflictsSync(Collection<Workout> workouts) {
+        return scheduleStore.findConflicts(workouts);
+    }
+
+    /**
+     * Observes one day's workouts from the schedule store, only emitting when that day changes
+     */
+    @MainThread
+    public LiveData<List<Workout>> getWorkoutsByDay(int dayOfWeek) {
+        LiveData<List<Workout>> workouts = workoutsByDay.get(dayOfWeek);
+        if (workouts == null) {
+            workouts = scheduleStore.observe(store -> store.getWorkoutsByDay(dayOfWeek));
+            workoutsByDay.put(dayOfWeek, workouts);
+        }
+        return workouts;
     }
 } 
\ No newline at end of file
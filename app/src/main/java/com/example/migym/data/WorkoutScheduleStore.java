@@ -0,0 +1,460 @@
+package com.example.migym.data;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutReminder;
+import com.example.migym.models.WorkoutSummary;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Process-wide in-memory copy of the weekly schedule, shared by every repository.
+ * <p>
+ * The week is kept as seven buckets sorted by start time. Repositories report their
+ * writes from inside {@link #runWrite}, so the buckets are updated in place and reads
+ * never go to disk once the first load is done. Every change to the table, including
+ * those that bypass the repositories, also arrives through Room's {@link InvalidationTracker},
+ * which reloads the week in the background and only publishes it when it differs.
+ * <p>
+ * Snapshots are immutable; writers replace them, so readers need no locking.
+ * Workouts are copied on the way in and on the way out, so callers may edit them freely.
+ */
+public class WorkoutScheduleStore {
+    private static final String TAG = "WorkoutScheduleStore";
+    private static final int DAYS_PER_WEEK = WorkoutWeek.DAYS_PER_WEEK;
+    private static final Comparator<Workout> BY_START =
+            (a, b) -> Integer.compare(a.getStartMinuteOfWeek(), b.getStartMinuteOfWeek());
+
+    private static volatile WorkoutScheduleStore instance;
+
+    private final AppDatabase database;
+    private final WorkoutDao workoutDao;
+    private final Executor readExecutor;
+    private final Object lock = new Object();
+    private volatile Week week;
+    // Bumped by every write-through, so a reload that raced with a write is run again
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private WorkoutScheduleStore(AppDatabase database) {
+        this.database = database;
+        this.workoutDao = database.workoutDao();
+        this.readExecutor = database.getQueryExecutor();
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("workouts") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                // Room folds writes from elsewhere into the notification for our own, so
+                // none is skipped; the reload publishes nothing if the buckets already match
+                if (week != null) {
+                    scheduleReload();
+                }
+            }
+        });
+    }
+
+    public static WorkoutScheduleStore getInstance(AppDatabase database) {
+        if (instance == null) {
+            synchronized (WorkoutScheduleStore.class) {
+                if (instance == null) {
+                    instance = new WorkoutScheduleStore(database);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the week in the background so the first screen does not wait for it
+     */
+    public void preload() {
+        if (week == null) {
+            readExecutor.execute(this::current);
+        }
+    }
+
+    /**
+     * Runs a repository write in a transaction. The write reports what it changed through
+     * {@link #onSaved} or {@link #onDeleted} before returning, so readers see it at once.
+     * The invalidation Room sends on commit still reloads the week, but that reload finds
+     * the same workouts and notifies no one.
+     */
+    @WorkerThread
+    public void runWrite(@NonNull Runnable write) {
+        callWrite(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    @WorkerThread
+    public <T> T callWrite(@NonNull Callable<T> write) {
+        try {
+            return database.runInTransaction(write);
+        } catch (RuntimeException e) {
+            // Reports may already be applied for a transaction that rolled back
+            if (week != null) {
+                scheduleReload();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Observes a value computed from the schedule, such as one day's workouts. It is
+     * recomputed in memory on the query pool each time the week changes, and only
+     * delivered when it differs from the previous value.
+     */
+    @NonNull
+    public <T> LiveData<T> observe(@NonNull Function<WorkoutScheduleStore, T> query) {
+        return new Observed<>(query);
+    }
+
+    /**
+     * Workouts of one day, ordered by start time. Sunday includes rows still stored as 7.
+     */
+    @WorkerThread
+    @NonNull
+    public List<Workout> getWorkoutsByDay(int dayOfWeek) {
+        return copies(current().buckets[bucketOf(dayOfWeek)]);
+    }
+
+    /**
+     * The whole schedule grouped by day. Built once per snapshot and shared by every
+     * caller until the next change, so it must be treated as read-only.
+     */
+    @WorkerThread
+    @NonNull
+    public WorkoutWeek getWeek() {
+        return current().byDay();
+    }
+
+    @WorkerThread
+    @NonNull
+    public List<WorkoutSummary> getSummariesByDay(int dayOfWeek) {
+        List<Workout> workouts = getWorkoutsByDay(dayOfWeek);
+        List<WorkoutSummary> summaries = new ArrayList<>(workouts.size());
+        for (Workout workout : workouts) {
+            summaries.add(WorkoutSummary.from(workout));
+        }
+        return summaries;
+    }
+
+    /**
+     * Reminders of every workout with notifications enabled
+     */
+    @WorkerThread
+    @NonNull
+    public List<WorkoutReminder> getEnabledReminders() {
+        List<WorkoutReminder> reminders = new ArrayList<>();
+        for (List<Workout> bucket : current().buckets) {
+            for (Workout workout : bucket) {
+                if (workout.isNotificationEnabled()) {
+                    reminders.add(WorkoutReminder.from(workout));
+                }
+            }
+        }
+        return reminders;
+    }
+
+    /**
+     * Finds stored workouts overlapping the given one
+     * @return Conflicting workouts, excluding the candidate itself
+     */
+    @WorkerThread
+    @NonNull
+    public List<Workout> findConflicts(@NonNull Workout candidate) {
+        return copies(current().intervals().findConflicts(candidate));
+    }
+
+    /**
+     * Checks several candidates against the stored schedule at once
+     * @return Conflicts for each candidate that has any
+     */
+    @WorkerThread
+    @NonNull
+    public Map<Workout, List<Workout>> findConflicts(@NonNull Collection<Workout> candidates) {
+        Map<Workout, List<Workout>> conflicts = current().intervals().findConflicts(candidates);
+        for (Map.Entry<Workout, List<Workout>> entry : conflicts.entrySet()) {
+            entry.setValue(copies(entry.getValue()));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Finds stored workouts overlapping the half-open interval [start, end) in minutes of the week
+     */
+    @WorkerThread
+    @NonNull
+    public List<Workout> findOverlapping(int start, int end) {
+        return copies(current().intervals().findOverlapping(start, end));
+    }
+
+    /**
+     * Records an insert or update, see {@link #runWrite}
+     */
+    public void onSaved(@NonNull Workout workout) {
+        onSavedAll(Collections.singletonList(workout));
+    }
+
+    public void onSavedAll(@NonNull Collection<Workout> workouts) {
+        synchronized (lock) {
+            countWrite();
+            if (week == null) return;
+            // Later entries win, as they do in the table
+            Map<String, Workout> byId = new LinkedHashMap<>();
+            for (Workout saved : workouts) {
+                byId.put(saved.getId(), new Workout(saved));
+            }
+            List<Workout>[] buckets = week.copyBuckets();
+            for (List<Workout> bucket : buckets) {
+                bucket.removeIf(workout -> byId.containsKey(workout.getId()));
+            }
+            // Appended then sorted once, so an import chunk stays linear in the size of the week
+            for (Workout workout : byId.values()) {
+                buckets[bucketOf(workout.getDayOfWeek())].add(workout);
+            }
+            for (List<Workout> bucket : buckets) {
+                Collections.sort(bucket, BY_START);
+            }
+            week = new Week(buckets);
+        }
+        notifyChanged();
+    }
+
+    /**
+     * Records deletes, see {@link #runWrite}
+     */
+    public void onDeleted(@NonNull Collection<String> workoutIds) {
+        synchronized (lock) {
+            countWrite();
+            if (week == null) return;
+            List<Workout>[] buckets = week.copyBuckets();
+            for (String id : workoutIds) {
+                removeFrom(buckets, id);
+            }
+            week = new Week(buckets);
+        }
+        notifyChanged();
+    }
+
+    public void onDeleted(@NonNull String workoutId) {
+        onDeleted(Collections.singletonList(workoutId));
+    }
+
+    public void onDeletedAll() {
+        synchronized (lock) {
+            countWrite();
+            if (week == null) return;
+            week = new Week(Week.emptyBuckets());
+        }
+        notifyChanged();
+    }
+
+    private void countWrite() {
+        writeCount.incrementAndGet();
+    }
+
+    private void notifyChanged() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private static List<Workout> copies(List<Workout> workouts) {
+        List<Workout> copies = new ArrayList<>(workouts.size());
+        for (Workout workout : workouts) {
+            copies.add(new Workout(workout));
+        }
+        return copies;
+    }
+
+    private Week current() {
+        Week snapshot = week;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (lock) {
+            if (week == null) {
+                week = Week.from(workoutDao.getAllWorkoutsSync());
+            }
+            return week;
+        }
+    }
+
+    private void scheduleReload() {
+        if (!reloadScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        readExecutor.execute(() -> {
+            reloadScheduled.set(false);
+            long writesBefore = writeCount.get();
+            try {
+                Week reloaded = Week.from(workoutDao.getAllWorkoutsSync());
+                boolean raced;
+                boolean changed = false;
+                synchronized (lock) {
+                    // A write-through since the query started may predate a foreign change
+                    // the query saw, so the query runs again rather than dropping that change
+                    raced = writeCount.get() != writesBefore;
+                    if (!raced && !reloaded.sameWorkouts(week)) {
+                        week = reloaded;
+                        changed = true;
+                    }
+                }
+                if (raced) {
+                    scheduleReload();
+                } else if (changed) {
+                    notifyChanged();
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error reloading schedule", e);
+            }
+        });
+    }
+
+    private static void removeFrom(List<Workout>[] buckets, String workoutId) {
+        for (List<Workout> bucket : buckets) {
+            for (int i = 0; i < bucket.size(); i++) {
+                if (bucket.get(i).getId().equals(workoutId)) {
+                    bucket.remove(i);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int bucketOf(int dayOfWeek) {
+        return WorkoutWeek.indexOf(dayOfWeek);
+    }
+
+    private final class Observed<T> extends LiveData<T> implements Runnable {
+        private final Function<WorkoutScheduleStore, T> query;
+        private final AtomicBoolean refreshQueued = new AtomicBoolean();
+        private T last;
+
+        Observed(Function<WorkoutScheduleStore, T> query) {
+            this.query = query;
+        }
+
+        @Override
+        protected void onActive() {
+            listeners.add(this);
+            run();
+        }
+
+        @Override
+        protected void onInactive() {
+            listeners.remove(this);
+        }
+
+        // Called on every change; several changes before the refresh runs share it
+        @Override
+        public void run() {
+            if (refreshQueued.compareAndSet(false, true)) {
+                readExecutor.execute(this::refresh);
+            }
+        }
+
+        private synchronized void refresh() {
+            refreshQueued.set(false);
+            try {
+                T value = query.apply(WorkoutScheduleStore.this);
+                if (!value.equals(last)) {
+                    last = value;
+                    postValue(value);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading schedule", e);
+            }
+        }
+    }
+
+    private static final class Week {
+        final List<Workout>[] buckets;
+        private volatile WorkoutIntervalIndex intervals;
+        private volatile WorkoutWeek byDay;
+
+        Week(List<Workout>[] buckets) {
+            this.buckets = buckets;
+        }
+
+        static Week from(List<Workout> workouts) {
+            List<Workout>[] buckets = emptyBuckets();
+            for (Workout workout : workouts) {
+                buckets[bucketOf(workout.getDayOfWeek())].add(workout);
+            }
+            // Days 6 and 7 share a bucket, so the query order is not enough
+            for (List<Workout> bucket : buckets) {
+                Collections.sort(bucket, BY_START);
+            }
+            return new Week(buckets);
+        }
+
+        @SuppressWarnings("unchecked")
+        static List<Workout>[] emptyBuckets() {
+            List<Workout>[] buckets = new List[DAYS_PER_WEEK];
+            for (int i = 0; i < DAYS_PER_WEEK; i++) {
+                buckets[i] = new ArrayList<>();
+            }
+            return buckets;
+        }
+
+        boolean sameWorkouts(Week other) {
+            return other != null && Arrays.equals(buckets, other.buckets);
+        }
+
+        List<Workout>[] copyBuckets() {
+            List<Workout>[] copy = emptyBuckets();
+            for (int i = 0; i < DAYS_PER_WEEK; i++) {
+                copy[i].addAll(buckets[i]);
+            }
+            return copy;
+        }
+
+        // Built on first conflict check and dropped with the snapshot
+        WorkoutIntervalIndex intervals() {
+            WorkoutIntervalIndex index = intervals;
+            if (index == null) {
+                List<Workout> all = new ArrayList<>();
+                for (List<Workout> bucket : buckets) {
+                    all.addAll(bucket);
+                }
+                index = WorkoutIntervalIndex.build(all);
+                intervals = index;
+            }
+            return index;
+        }
+
+        // The same instance for the whole snapshot, so observers skip unchanged weeks
+        WorkoutWeek byDay() {
+            WorkoutWeek built = byDay;
+            if (built == null) {
+                List<Workout> all = new ArrayList<>();
+                for (List<Workout> bucket : buckets) {
+                    all.addAll(copies(bucket));
+                }
+                built = WorkoutWeek.from(all);
+                byDay = built;
+            }
+            return built;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.migym.data;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+import com.example.migym.models.WorkoutTag;
+import java.util.List;
+
+/**
+ * Read access to the muscle group / equipment catalogue. The catalogue and the join
+ * table are written by migrations and triggers only.
+ */
+@Dao
+public interface WorkoutTagDao {
+    @Query("SELECT * FROM workout_tags WHERE kind = :kind ORDER BY bit ASC")
+    LiveData<List<WorkoutTag>> getTagsByKind(int kind);
+
+    @Query("SELECT workout_tags.* FROM workout_tags "
+            + "JOIN workout_tag_cross_ref ON workout_tag_cross_ref.tag_id = workout_tags.id "
+            + "WHERE workout_tag_cross_ref.workout_id = :workoutId ORDER BY kind ASC, bit ASC")
+    List<WorkoutTag> getTagsForWorkoutSync(String workoutId);
+
+    @Query("SELECT workout_id FROM workout_tag_cross_ref WHERE tag_id = :tagId")
+    List<String> getWorkoutIdsWithTagSync(int tagId);
+}
@@ -0,0 +1,71 @@
+package com.example.migym.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.example.migym.models.WorkoutTag;
+
+/**
+ * Schema pieces of the tag catalogue that Room does not generate: the catalogue rows
+ * and the triggers that keep workout_tag_cross_ref in step with the mask columns.
+ * Keeping the join table in triggers means no write path has to remember it.
+ */
+final class WorkoutTagSql {
+    private static final String SELECT_TAGS_OF_NEW =
+            "SELECT NEW.id, id FROM workout_tags "
+            + "WHERE (kind = " + WorkoutTag.KIND_MUSCLE_GROUP + " AND ((NEW.muscle_mask >> bit) & 1) = 1) "
+            + "OR (kind = " + WorkoutTag.KIND_EQUIPMENT + " AND ((NEW.equipment_mask >> bit) & 1) = 1)";
+
+    private WorkoutTagSql() {
+    }
+
+    /**
+     * Inserts missing catalogue entries
+     */
+    static void seedCatalogue(SupportSQLiteDatabase db) {
+        for (WorkoutTag tag : WorkoutTag.getCatalogue()) {
+            ContentValues values = new ContentValues();
+            values.put("id", tag.getId());
+            values.put("kind", tag.getKind());
+            values.put("bit", tag.getBit());
+            values.put("name", tag.getName());
+            db.insert("workout_tags", SQLiteDatabase.CONFLICT_IGNORE, values);
+        }
+    }
+
+    static void createTriggers(SupportSQLiteDatabase db) {
+        // REPLACE inserts do not fire delete triggers, so inserts clear old rows first
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS workout_tags_after_insert AFTER INSERT ON workouts BEGIN "
+                + "DELETE FROM workout_tag_cross_ref WHERE workout_id = NEW.id; "
+                + "INSERT OR IGNORE INTO workout_tag_cross_ref (workout_id, tag_id) " + SELECT_TAGS_OF_NEW + "; "
+                + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS workout_tags_after_update "
+                + "AFTER UPDATE OF id, muscle_mask, equipment_mask ON workouts BEGIN "
+                + "DELETE FROM workout_tag_cross_ref WHERE workout_id = OLD.id; "
+                + "INSERT OR IGNORE INTO workout_tag_cross_ref (workout_id, tag_id) " + SELECT_TAGS_OF_NEW + "; "
+                + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS workout_tags_after_delete AFTER DELETE ON workouts BEGIN "
+                + "DELETE FROM workout_tag_cross_ref WHERE workout_id = OLD.id; "
+                + "END");
+    }
+
+    /**
+     * Recomputes the mask columns of existing rows from their text columns.
+     * The update trigger fills the join table as each row changes.
+     */
+    static void backfillMasks(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("SELECT rowid, muscle_groups, equipment FROM workouts")) {
+            while (cursor.moveToNext()) {
+                long muscleMask = WorkoutTag.computeMask(WorkoutTag.KIND_MUSCLE_GROUP, cursor.getString(1));
+                long equipmentMask = WorkoutTag.computeMask(WorkoutTag.KIND_EQUIPMENT, cursor.getString(2));
+                if (muscleMask == 0 && equipmentMask == 0) continue;
+                ContentValues values = new ContentValues();
+                values.put("muscle_mask", muscleMask);
+                values.put("equipment_mask", equipmentMask);
+                db.update("workouts", SQLiteDatabase.CONFLICT_NONE, values,
+                        "rowid = ?", new Object[] {cursor.getLong(0)});
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.migym.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import com.example.migym.models.Workout;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable index of the weekly schedule: seven lists, one per day, sorted by start time.
+ * Built once per change off the main thread, so looking up a day is an array access.
+ */
+public final class WorkoutWeek {
+    public static final int DAYS_PER_WEEK = 7;
+
+    private static final WorkoutWeek EMPTY = from(Collections.emptyList());
+
+    private final List<Workout>[] days;
+
+    private WorkoutWeek(List<Workout>[] days) {
+        this.days = days;
+    }
+
+    @NonNull
+    public static WorkoutWeek empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Groups the workouts by day
+     * @param workouts Workouts in any order
+     */
+    @WorkerThread
+    @NonNull
+    public static WorkoutWeek from(@NonNull List<Workout> workouts) {
+        List<Workout>[] days = emptyDays();
+        for (Workout workout : workouts) {
+            days[indexOf(workout.getDayOfWeek())].add(workout);
+        }
+        for (int i = 0; i < DAYS_PER_WEEK; i++) {
+            // Days 6 and 7 share a list, so the query order is not enough
+            Collections.sort(days[i], (a, b) -> Integer.compare(a.getStartMinuteOfWeek(), b.getStartMinuteOfWeek()));
+            days[i] = Collections.unmodifiableList(days[i]);
+        }
+        return new WorkoutWeek(days);
+    }
+
+    /**
+     * Workouts of one day, read-only
+     * @param dayOfWeek day_of_week as stored, 0 is Monday and 6 Sunday
+     */
+    @NonNull
+    public List<Workout> getDay(int dayOfWeek) {
+        return days[indexOf(dayOfWeek)];
+    }
+
+    public int size() {
+        int size = 0;
+        for (List<Workout> day : days) {
+            size += day.size();
+        }
+        return size;
+    }
+
+    // Monday is 0 and Sunday 6. Rows saved with the old 1-7 numbering store Sunday as 7.
+    static int indexOf(int dayOfWeek) {
+        return Math.min(Math.max(dayOfWeek, 0), DAYS_PER_WEEK - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Workout>[] emptyDays() {
+        List<Workout>[] days = new List[DAYS_PER_WEEK];
+        for (int i = 0; i < DAYS_PER_WEEK; i++) {
+            days[i] = new ArrayList<>();
+        }
+        return days;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.migym.data;
+
+import androidx.annotation.NonNull;
+import com.example.migym.models.Workout;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a conflict-checked write made by {@link WorkoutDao#saveIfNoConflict(Workout, boolean)}.
+ */
+public final class WorkoutWriteResult {
+    public enum Status {
+        INSERTED,
+        UPDATED,
+        CONFLICT
+    }
+
+    private final Status status;
+    private final Workout workout;
+    private final List<Workout> conflicts;
+
+    private WorkoutWriteResult(Status status, Workout workout, List<Workout> conflicts) {
+        this.status = status;
+        this.workout = workout;
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    static WorkoutWriteResult inserted(Workout workout, List<Workout> overlapping) {
+        return new WorkoutWriteResult(Status.INSERTED, workout, overlapping);
+    }
+
+    static WorkoutWriteResult updated(Workout workout, List<Workout> overlapping) {
+        return new WorkoutWriteResult(Status.UPDATED, workout, overlapping);
+    }
+
+    static WorkoutWriteResult conflict(Workout workout, List<Workout> conflicts) {
+        return new WorkoutWriteResult(Status.CONFLICT, workout, conflicts);
+    }
+
+    @NonNull
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSaved() {
+        return status != Status.CONFLICT;
+    }
+
+    @NonNull
+    public Workout getWorkout() {
+        return workout;
+    }
+
+    /**
+     * Workouts overlapping the saved one. When the write was forced these
+     * are the conflicts that were accepted.
+     */
+    @NonNull
+    public List<Workout> getConflicts() {
+        return conflicts;
+    }
+}
@@ -291,6 +291,9 @@ public class AddWorkoutDialog extends DialogFragment {
             minutesBefore = Integer.parseInt(PreferenceManager.getDefaultSharedPreferences(requireContext())
                     .getString("notification_time", "30"));
         } catch (Exception ignored) {}
+        // Los avisos los arma ReminderScheduler a partir de estos campos al guardar
+        workout.setNotificationEnabled(notificationsEnabled);
+        workout.setNotificationTime(minutesBefore);
         if (notificationsEnabled) {
             WorkoutAlarmManager.scheduleWorkoutAlarm(requireContext(), workout, minutesBefore);
         } else {
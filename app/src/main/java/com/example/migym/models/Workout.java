@@ -5,17 +5,26 @@ import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.PropertyName;
-import java.util.Objects;
 import java.util.Date;
+import java.util.Objects;
 
 /**
  * Entity class representing a workout in the application.
  * This class is used with Room database to store workout information.
  */
-@Entity(tableName = "workouts")
+@Entity(tableName = "workouts",
+        indices = {
+            @Index(value = {"day_of_week", "start_minute_of_week"}),
+            @Index(value = {"start_minute_of_week"}),
+            @Index(value = {"duration"})
+        })
 public class Workout {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
     @PrimaryKey
     @NonNull
     @ColumnInfo(name = "id")
@@ -43,6 +52,13 @@ public class Workout {
     @ColumnInfo(name = "time")
     private String time;
 
+    /**
+     * Derived from day_of_week and time so schedule queries can use an integer
+     * index range instead of comparing "HH:mm" strings.
+     */
+    @ColumnInfo(name = "start_minute_of_week", defaultValue = "0")
+    private int startMinuteOfWeek;
+
     @ColumnInfo(name = "duration")
     private int duration;
 
@@ -64,6 +80,16 @@ public class Workout {
     @ColumnInfo(name = "muscle_groups")
     private String muscleGroups;
 
+    /**
+     * Catalogue bits derived from muscle_groups and equipment, see {@link WorkoutTag}.
+     * Lets filters compare integers in SQL instead of splitting strings per row.
+     */
+    @ColumnInfo(name = "muscle_mask", defaultValue = "0")
+    private long muscleMask;
+
+    @ColumnInfo(name = "equipment_mask", defaultValue = "0")
+    private long equipmentMask;
+
     @ColumnInfo(name = "image_url")
     private String imageUrl;
 
@@ -91,6 +117,17 @@ public class Workout {
     @ColumnInfo(name = "notification_enabled")
     private boolean notificationEnabled;
 
+    /**
+     * Set by {@link com.example.migym.data.WorkoutDao} to one past the stored row on every
+     * write, so two rows with the same id and version hold the same data.
+     */
+    @ColumnInfo(name = "version", defaultValue = "0")
+    private int version;
+
+    // Epoch milliseconds of the last write
+    @ColumnInfo(name = "updated_at", defaultValue = "0")
+    private long updatedAt;
+
     /**
      * Default constructor required by Room
      */
@@ -102,7 +139,7 @@ public class Workout {
      * Constructor for creating a basic workout
      * @param name Workout name
      * @param type Type of workout
-     * @param dayOfWeek Day of the week (1-7, where 1 is Sunday)
+     * @param dayOfWeek Day of the week (0-6, where 0 is Monday)
      * @param time Time of the workout in HH:mm format
      */
     @Ignore
@@ -111,6 +148,7 @@ public class Workout {
         this.type = typeStr;
         this.dayOfWeek = dayOfWeek;
         this.time = time;
+        this.startMinuteOfWeek = computeStartMinuteOfWeek(dayOfWeek, time);
         this.title = name;
         this.description = "";
         this.duration = 0;
@@ -119,6 +157,43 @@ public class Workout {
         this.completed = 0;
     }
 
+    /**
+     * Copies every stored column, for caches that must not share instances with callers
+     * @param other Workout to copy
+     */
+    @Ignore
+    public Workout(@NonNull Workout other) {
+        this.id = other.id;
+        this.date = other.date != null ? new Date(other.date.getTime()) : null;
+        this.name = other.name;
+        this.title = other.title;
+        this.description = other.description;
+        this.type = other.type;
+        this.dayOfWeek = other.dayOfWeek;
+        this.time = other.time;
+        this.startMinuteOfWeek = other.startMinuteOfWeek;
+        this.duration = other.duration;
+        this.instructor = other.instructor;
+        this.location = other.location;
+        this.completed = other.completed;
+        this.difficulty = other.difficulty;
+        this.equipment = other.equipment;
+        this.muscleGroups = other.muscleGroups;
+        this.muscleMask = other.muscleMask;
+        this.equipmentMask = other.equipmentMask;
+        this.imageUrl = other.imageUrl;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.distance = other.distance;
+        this.speed = other.speed;
+        this.notes = other.notes;
+        this.performance = other.performance;
+        this.notificationTime = other.notificationTime;
+        this.notificationEnabled = other.notificationEnabled;
+        this.version = other.version;
+        this.updatedAt = other.updatedAt;
+    }
+
     @Exclude
     @NonNull
     public String getId() {
@@ -192,6 +267,7 @@ public class Workout {
 
     public void setDayOfWeek(int dayOfWeek) {
         this.dayOfWeek = dayOfWeek;
+        this.startMinuteOfWeek = computeStartMinuteOfWeek(dayOfWeek, time);
     }
 
     public String getTime() {
@@ -200,6 +276,49 @@ public class Workout {
 
     public void setTime(String time) {
         this.time = time;
+        this.startMinuteOfWeek = computeStartMinuteOfWeek(dayOfWeek, time);
+    }
+
+    @Exclude
+    public int getStartMinuteOfWeek() {
+        return startMinuteOfWeek;
+    }
+
+    @Exclude
+    public void setStartMinuteOfWeek(int startMinuteOfWeek) {
+        this.startMinuteOfWeek = startMinuteOfWeek;
+    }
+
+    /**
+     * Parses a time in HH:mm format into minutes since midnight
+     * @param time Time in HH:mm format
+     * @return Minutes since midnight, or 0 if the time cannot be parsed
+     */
+    public static int parseMinuteOfDay(String time) {
+        if (time == null) {
+            return 0;
+        }
+        int separator = time.indexOf(':');
+        if (separator <= 0) {
+            return 0;
+        }
+        try {
+            int hour = Integer.parseInt(time.substring(0, separator).trim());
+            int minute = Integer.parseInt(time.substring(separator + 1).trim());
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Computes the value stored in the start_minute_of_week column
+     * @param dayOfWeek Day of the week, 0 is Monday
+     * @param time Time in HH:mm format
+     * @return Minutes since Monday 00:00
+     */
+    public static int computeStartMinuteOfWeek(int dayOfWeek, String time) {
+        return dayOfWeek * MINUTES_PER_DAY + parseMinuteOfDay(time);
     }
 
     public int getDuration() {
@@ -248,6 +367,7 @@ public class Workout {
 
     public void setEquipment(String equipment) {
         this.equipment = equipment;
+        this.equipmentMask = WorkoutTag.computeMask(WorkoutTag.KIND_EQUIPMENT, equipment);
     }
 
     public String getMuscleGroups() {
@@ -256,6 +376,27 @@ public class Workout {
 
     public void setMuscleGroups(String muscleGroups) {
         this.muscleGroups = muscleGroups;
+        this.muscleMask = WorkoutTag.computeMask(WorkoutTag.KIND_MUSCLE_GROUP, muscleGroups);
+    }
+
+    @Exclude
+    public long getMuscleMask() {
+        return muscleMask;
+    }
+
+    @Exclude
+    public void setMuscleMask(long muscleMask) {
+        this.muscleMask = muscleMask;
+    }
+
+    @Exclude
+    public long getEquipmentMask() {
+        return equipmentMask;
+    }
+
+    @Exclude
+    public void setEquipmentMask(long equipmentMask) {
+        this.equipmentMask = equipmentMask;
     }
 
     public String getImageUrl() {
@@ -330,6 +471,35 @@ public class Workout {
         this.notificationEnabled = notificationEnabled;
     }
 
+    @Exclude
+    public int getVersion() {
+        return version;
+    }
+
+    @Exclude
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    @Exclude
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Exclude
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Stamps the version the row is about to be written with, see
+     * {@link com.example.migym.data.WorkoutDao#markWritten}
+     */
+    public void markWritten(int version, long now) {
+        this.version = version;
+        this.updatedAt = now;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -365,15 +535,30 @@ public class Workout {
         return Objects.hash(id, name, title, description, type, dayOfWeek, time, duration, instructor, location, completed, latitude, longitude, difficulty, equipment, muscleGroups, imageUrl, distance, speed, notes, performance, notificationTime, notificationEnabled);
     }
 
+    // Deserializers can leave the id null despite the annotation
+    private boolean hasId() {
+        return id != null && !id.isEmpty();
+    }
+
     /**
      * Validates if the workout time conflicts with another workout
      * @param other The other workout to check against
-     * @return true if there is a time conflict
+     * @return true if both workouts overlap for at least one minute
      */
     public boolean hasTimeConflict(Workout other) {
-        return this.dayOfWeek == other.dayOfWeek && 
-               this.time.equals(other.time) &&
-               !this.id.equals(other.id);
+        if (other == null || other == this) {
+            return false;
+        }
+        // Workouts not saved yet have no id, so two of them are never the same workout
+        if (hasId() && Objects.equals(id, other.id)) {
+            return false;
+        }
+        int start = Math.floorMod(startMinuteOfWeek, MINUTES_PER_WEEK);
+        int otherStart = Math.floorMod(other.startMinuteOfWeek, MINUTES_PER_WEEK);
+        // Distance from each start to the other, going forward around the week
+        int forward = Math.floorMod(otherStart - start, MINUTES_PER_WEEK);
+        int backward = Math.floorMod(start - otherStart, MINUTES_PER_WEEK);
+        return forward < Math.max(1, duration) || backward < Math.max(1, other.duration);
     }
 
     /**
@@ -395,8 +580,8 @@ public class Workout {
      * @return The name of the day (e.g., "Monday", "Tuesday", etc.)
      */
     public String getDayOfWeekString() {
-        String[] days = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
-        int index = (dayOfWeek - 1) % 7;
-        return days[index < 0 ? 0 : index];
+        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+        // Older rows store Sunday as 7
+        return days[Math.min(Math.max(dayOfWeek, 0), days.length - 1)];
     }
 } 
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.example.migym.models;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import java.util.Locale;
+
+/**
+ * Full-text index over the searchable text columns of {@link Workout}.
+ * It is an external content table: Room keeps it in sync with triggers on the workouts
+ * table, so it never has to be written directly.
+ */
+@Fts4(contentEntity = Workout.class)
+@Entity(tableName = "workouts_fts")
+public class WorkoutFts {
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "description")
+    private String description;
+
+    @ColumnInfo(name = "instructor")
+    private String instructor;
+
+    @ColumnInfo(name = "notes")
+    private String notes;
+
+    @ColumnInfo(name = "equipment")
+    private String equipment;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getInstructor() {
+        return instructor;
+    }
+
+    public void setInstructor(String instructor) {
+        this.instructor = instructor;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public String getEquipment() {
+        return equipment;
+    }
+
+    public void setEquipment(String equipment) {
+        this.equipment = equipment;
+    }
+
+    /**
+     * Turns free text typed by the user into an FTS MATCH expression where every word
+     * must appear as a prefix, e.g. "yoga mar" becomes "yoga* mar*".
+     * @return The expression, or null if the text has no searchable words
+     */
+    @Nullable
+    public static String toPrefixQuery(@Nullable String text) {
+        if (text == null) return null;
+        StringBuilder query = new StringBuilder();
+        // Anything that is not a letter or digit would be read as FTS syntax, and
+        // lower case keeps words like OR or NOT from being taken as operators
+        for (String token : text.split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append(token.toLowerCase(Locale.ROOT)).append('*');
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    /**
+     * LIKE pattern matching names that start with the typed text, for use with ESCAPE '\'.
+     * %, _ and \ are escaped so they match themselves.
+     */
+    @NonNull
+    public static String toLikePrefix(@NonNull String text) {
+        StringBuilder pattern = new StringBuilder(text.length() + 2);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.migym.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * One completed session of a scheduled workout.
+ * Rows are only ever appended, so the schedule row in {@link Workout} stays untouched
+ * and stats can read the history as an indexed time series.
+ */
+@Entity(tableName = "workout_log",
+        indices = {
+            @Index(value = {"workout_id", "performed_at"}),
+            @Index(value = {"performed_at"})
+        })
+public class WorkoutLog {
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private long id;
+
+    @NonNull
+    @ColumnInfo(name = "workout_id")
+    private String workoutId = "";
+
+    // Epoch milliseconds
+    @ColumnInfo(name = "performed_at")
+    private long performedAt;
+
+    @ColumnInfo(name = "duration")
+    private int duration;
+
+    @ColumnInfo(name = "performance")
+    private int performance;
+
+    @ColumnInfo(name = "distance")
+    private double distance;
+
+    @ColumnInfo(name = "speed")
+    private double speed;
+
+    /**
+     * Default constructor required by Room
+     */
+    public WorkoutLog() {
+    }
+
+    /**
+     * Creates a log entry for a session
+     * @param workoutId Id of the scheduled workout
+     * @param performedAt When the session was performed, in epoch milliseconds
+     * @param duration Minutes spent
+     * @param performance User rating of the session
+     * @param distance Distance covered in kilometres
+     * @param speed Average speed in km/h
+     */
+    @Ignore
+    public WorkoutLog(@NonNull String workoutId, long performedAt, int duration, int performance,
+                      double distance, double speed) {
+        this.workoutId = workoutId;
+        this.performedAt = performedAt;
+        this.duration = duration;
+        this.performance = performance;
+        this.distance = distance;
+        this.speed = speed;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getWorkoutId() {
+        return workoutId;
+    }
+
+    public void setWorkoutId(@NonNull String workoutId) {
+        this.workoutId = workoutId;
+    }
+
+    public long getPerformedAt() {
+        return performedAt;
+    }
+
+    public void setPerformedAt(long performedAt) {
+        this.performedAt = performedAt;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    public int getPerformance() {
+        return performance;
+    }
+
+    public void setPerformance(int performance) {
+        this.performance = performance;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(double speed) {
+        this.speed = speed;
+    }
+}
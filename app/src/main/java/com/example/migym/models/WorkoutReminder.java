@@ -0,0 +1,89 @@
+package com.example.migym.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+/**
+ * Read-only projection of the workouts table with the columns needed to schedule notifications.
+ */
+public class WorkoutReminder {
+    public static final String COLUMNS =
+            "id, title, day_of_week, time, start_minute_of_week, duration, notification_time, notification_enabled";
+
+    @NonNull
+    @ColumnInfo(name = "id")
+    private final String id;
+
+    @ColumnInfo(name = "title")
+    private final String title;
+
+    @ColumnInfo(name = "day_of_week")
+    private final int dayOfWeek;
+
+    @ColumnInfo(name = "time")
+    private final String time;
+
+    @ColumnInfo(name = "start_minute_of_week")
+    private final int startMinuteOfWeek;
+
+    @ColumnInfo(name = "duration")
+    private final int duration;
+
+    @ColumnInfo(name = "notification_time")
+    private final int notificationTime;
+
+    @ColumnInfo(name = "notification_enabled")
+    private final boolean notificationEnabled;
+
+    public WorkoutReminder(@NonNull String id, String title, int dayOfWeek, String time,
+                           int startMinuteOfWeek, int duration, int notificationTime,
+                           boolean notificationEnabled) {
+        this.id = id;
+        this.title = title;
+        this.dayOfWeek = dayOfWeek;
+        this.time = time;
+        this.startMinuteOfWeek = startMinuteOfWeek;
+        this.duration = duration;
+        this.notificationTime = notificationTime;
+        this.notificationEnabled = notificationEnabled;
+    }
+
+    public static WorkoutReminder from(@NonNull Workout workout) {
+        return new WorkoutReminder(workout.getId(), workout.getTitle(), workout.getDayOfWeek(),
+                workout.getTime(), workout.getStartMinuteOfWeek(), workout.getDuration(),
+                workout.getNotificationTime(), workout.isNotificationEnabled());
+    }
+
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public int getStartMinuteOfWeek() {
+        return startMinuteOfWeek;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public int getNotificationTime() {
+        return notificationTime;
+    }
+
+    public boolean isNotificationEnabled() {
+        return notificationEnabled;
+    }
+}
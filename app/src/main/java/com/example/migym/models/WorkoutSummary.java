@@ -0,0 +1,119 @@
+package com.example.migym.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import java.util.Objects;
+
+/**
+ * Read-only projection of the workouts table with the columns shown in lists and widgets.
+ * Loading this instead of {@link Workout} skips description, notes, equipment, image and GPS columns.
+ */
+public class WorkoutSummary {
+    public static final String COLUMNS =
+            "id, name, type, day_of_week, time, start_minute_of_week, duration, location, version";
+
+    @NonNull
+    @ColumnInfo(name = "id")
+    private final String id;
+
+    @ColumnInfo(name = "name")
+    private final String name;
+
+    @ColumnInfo(name = "type")
+    private final String type;
+
+    @ColumnInfo(name = "day_of_week")
+    private final int dayOfWeek;
+
+    @ColumnInfo(name = "time")
+    private final String time;
+
+    @ColumnInfo(name = "start_minute_of_week")
+    private final int startMinuteOfWeek;
+
+    @ColumnInfo(name = "duration")
+    private final int duration;
+
+    @ColumnInfo(name = "location")
+    private final String location;
+
+    @ColumnInfo(name = "version")
+    private final int version;
+
+    public WorkoutSummary(@NonNull String id, String name, String type, int dayOfWeek, String time,
+                          int startMinuteOfWeek, int duration, String location, int version) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.dayOfWeek = dayOfWeek;
+        this.time = time;
+        this.startMinuteOfWeek = startMinuteOfWeek;
+        this.duration = duration;
+        this.location = location;
+        this.version = version;
+    }
+
+    public static WorkoutSummary from(@NonNull Workout workout) {
+        return new WorkoutSummary(workout.getId(), workout.getName(), workout.getType(), workout.getDayOfWeek(),
+                workout.getTime(), workout.getStartMinuteOfWeek(), workout.getDuration(),
+                workout.getLocation(), workout.getVersion());
+    }
+
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public int getStartMinuteOfWeek() {
+        return startMinuteOfWeek;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WorkoutSummary that = (WorkoutSummary) o;
+        return dayOfWeek == that.dayOfWeek &&
+               startMinuteOfWeek == that.startMinuteOfWeek &&
+               duration == that.duration &&
+               version == that.version &&
+               id.equals(that.id) &&
+               Objects.equals(name, that.name) &&
+               Objects.equals(type, that.type) &&
+               Objects.equals(time, that.time) &&
+               Objects.equals(location, that.location);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
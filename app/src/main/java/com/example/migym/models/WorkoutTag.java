@@ -0,0 +1,216 @@
+package com.example.migym.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Catalogue entry for a muscle group or a piece of equipment.
+ * <p>
+ * Every entry owns one bit of the muscle_mask or equipment_mask column of {@link Workout},
+ * so filters run as integer comparisons in SQL. Bits are part of the stored data:
+ * new entries must be appended with a new bit and existing bits never reused.
+ */
+@Entity(tableName = "workout_tags",
+        indices = {
+            @Index(value = {"kind", "name"}, unique = true)
+        })
+public class WorkoutTag {
+    public static final int KIND_MUSCLE_GROUP = 0;
+    public static final int KIND_EQUIPMENT = 1;
+    // One long per kind, keeping the sign bit unused
+    public static final int MAX_BITS = 63;
+
+    private static final List<WorkoutTag> CATALOGUE = new ArrayList<>();
+    // Normalized name or alias -> tag
+    private static final Map<String, WorkoutTag>[] ALIASES = newAliasMaps();
+
+    static {
+        muscle(0, "chest", "pecho", "pectorales");
+        muscle(1, "back", "espalda", "dorsales");
+        muscle(2, "shoulders", "hombros", "deltoides");
+        muscle(3, "biceps");
+        muscle(4, "triceps");
+        muscle(5, "arms", "brazos");
+        muscle(6, "core", "abdomen", "abdominales", "abs");
+        muscle(7, "legs", "piernas");
+        muscle(8, "quadriceps", "cuadriceps", "quads");
+        muscle(9, "hamstrings", "isquiotibiales", "femorales");
+        muscle(10, "glutes", "gluteos");
+        muscle(11, "calves", "gemelos");
+        muscle(12, "full_body", "full body", "cuerpo completo");
+
+        equipment(0, "none", "ninguno", "sin material");
+        equipment(1, "dumbbells", "mancuernas", "dumbbell");
+        equipment(2, "barbell", "barra");
+        equipment(3, "kettlebell", "pesa rusa", "kettlebells");
+        equipment(4, "machine", "maquina", "maquinas");
+        equipment(5, "resistance_band", "bandas", "gomas", "bands");
+        equipment(6, "mat", "esterilla");
+        equipment(7, "bench", "banco");
+        equipment(8, "pull_up_bar", "barra de dominadas");
+        equipment(9, "bike", "bicicleta");
+        equipment(10, "treadmill", "cinta");
+        equipment(11, "jump_rope", "comba", "cuerda");
+    }
+
+    // kind * 64 + bit, so ids are stable across installs
+    @PrimaryKey
+    @ColumnInfo(name = "id")
+    private int id;
+
+    @ColumnInfo(name = "kind")
+    private int kind;
+
+    @ColumnInfo(name = "bit")
+    private int bit;
+
+    @NonNull
+    @ColumnInfo(name = "name")
+    private String name = "";
+
+    /**
+     * Default constructor required by Room
+     */
+    public WorkoutTag() {
+    }
+
+    @Ignore
+    public WorkoutTag(int kind, int bit, @NonNull String name) {
+        this.id = idOf(kind, bit);
+        this.kind = kind;
+        this.bit = bit;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public void setKind(int kind) {
+        this.kind = kind;
+    }
+
+    public int getBit() {
+        return bit;
+    }
+
+    public void setBit(int bit) {
+        this.bit = bit;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public long getMask() {
+        return 1L << bit;
+    }
+
+    public static int idOf(int kind, int bit) {
+        return kind * 64 + bit;
+    }
+
+    /**
+     * @return Every catalogue entry, muscle groups first
+     */
+    @NonNull
+    public static List<WorkoutTag> getCatalogue() {
+        return Collections.unmodifiableList(CATALOGUE);
+    }
+
+    /**
+     * Converts a comma separated list such as "Piernas, glúteos" into its bitmask.
+     * Names outside the catalogue are kept in the text column but do not set any bit.
+     * @param kind {@link #KIND_MUSCLE_GROUP} or {@link #KIND_EQUIPMENT}
+     */
+    public static long computeMask(int kind, String names) {
+        if (names == null || names.isEmpty()) {
+            return 0;
+        }
+        long mask = 0;
+        for (String name : names.split("[,;/]")) {
+            WorkoutTag tag = ALIASES[kind].get(normalize(name));
+            if (tag != null) {
+                mask |= tag.getMask();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Ids of the tags whose bits are set in the mask, for queries on workout_tag_cross_ref
+     */
+    @NonNull
+    public static List<Integer> idsOf(int kind, long mask) {
+        List<Integer> ids = new ArrayList<>(Long.bitCount(mask));
+        for (int bit = 0; bit < MAX_BITS; bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                ids.add(idOf(kind, bit));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Builds the mask for a set of catalogue names, e.g. from selected filter chips
+     */
+    public static long maskOf(int kind, String... names) {
+        long mask = 0;
+        for (String name : names) {
+            mask |= computeMask(kind, name);
+        }
+        return mask;
+    }
+
+    private static String normalize(String name) {
+        String trimmed = name.trim().toLowerCase(Locale.ROOT);
+        // "glúteos" and "gluteos" are the same tag
+        return Normalizer.normalize(trimmed, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    private static void muscle(int bit, String name, String... aliases) {
+        add(new WorkoutTag(KIND_MUSCLE_GROUP, bit, name), aliases);
+    }
+
+    private static void equipment(int bit, String name, String... aliases) {
+        add(new WorkoutTag(KIND_EQUIPMENT, bit, name), aliases);
+    }
+
+    private static void add(WorkoutTag tag, String[] aliases) {
+        CATALOGUE.add(tag);
+        Map<String, WorkoutTag> byName = ALIASES[tag.kind];
+        byName.put(normalize(tag.name), tag);
+        for (String alias : aliases) {
+            byName.put(normalize(alias), tag);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, WorkoutTag>[] newAliasMaps() {
+        return new Map[] {new HashMap<String, WorkoutTag>(), new HashMap<String, WorkoutTag>()};
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.migym.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Join row between a workout and a catalogue tag.
+ * Rows are maintained by triggers on the workouts table from its mask columns,
+ * so they are never written directly.
+ */
+@Entity(tableName = "workout_tag_cross_ref",
+        primaryKeys = {"workout_id", "tag_id"},
+        indices = {
+            @Index(value = {"tag_id"})
+        })
+public class WorkoutTagCrossRef {
+    @NonNull
+    @ColumnInfo(name = "workout_id")
+    private String workoutId = "";
+
+    @ColumnInfo(name = "tag_id")
+    private int tagId;
+
+    @NonNull
+    public String getWorkoutId() {
+        return workoutId;
+    }
+
+    public void setWorkoutId(@NonNull String workoutId) {
+        this.workoutId = workoutId;
+    }
+
+    public int getTagId() {
+        return tagId;
+    }
+
+    public void setTagId(int tagId) {
+        this.tagId = tagId;
+    }
+}
@@ -3,24 +3,22 @@ package com.example.migym.notifications;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.app.Application;
-import com.example.migym.data.AppDatabase;
-import com.example.migym.data.WorkoutDao;
-import com.example.migym.models.Workout;
-import java.util.List;
+import com.example.migym.utils.AppExecutors;
 
 public class BootReceiver extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
         if (intent.getAction() != null && intent.getAction().equals(Intent.ACTION_BOOT_COMPLETED)) {
-            AppDatabase db = AppDatabase.getInstance(context);
-            WorkoutDao workoutDao = db.workoutDao();
-            WorkoutNotificationManager notificationManager = new WorkoutNotificationManager((Application) context.getApplicationContext());
-
-            List<Workout> workouts = workoutDao.getAllWorkoutsSync();
-            for (Workout workout : workouts) {
-                notificationManager.scheduleWorkoutNotification(workout);
-            }
+            PendingResult pendingResult = goAsync();
+            AppExecutors.getInstance().diskIO().execute("boot-reschedule", () -> {
+                try {
+                    // WorkManager keeps its jobs across reboots; this only tops up the window,
+                    // so at most a window's worth of jobs is enqueued however many workouts there are
+                    ReminderScheduler.getInstance(context).rearmNow();
+                } finally {
+                    pendingResult.finish();
+                }
+            });
         }
     }
-} 
\ No newline at end of file
+}
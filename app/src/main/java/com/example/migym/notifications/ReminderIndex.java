@@ -0,0 +1,183 @@
+package com.example.migym.notifications;
+
+import android.util.AtomicFile;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Batches currently armed in WorkManager, kept on disk so the scheduler can compare
+ * them with the schedule after a restart without asking WorkManager. It also remembers
+ * which future triggers have been delivered, since a batch shows some of them early.
+ * Not thread-safe; {@link ReminderScheduler} uses it under its own lock.
+ */
+class ReminderIndex {
+    private static final String TAG = "ReminderIndex";
+    private static final int MAGIC = 0x4D475249;
+    // Version 1 had no delivered triggers and its entries are one trigger each;
+    // version 2 kept a single delivered-until time instead of the triggers
+    private static final int FORMAT_VERSION = 3;
+
+    /**
+     * One armed job
+     */
+    static final class Entry {
+        final String workName;
+        // Comma-separated ids of the workouts in the batch
+        final String workoutIds;
+        final long triggerAt;
+        // Hash of what the notifications show, to spot a changed title or batch
+        final int contentHash;
+
+        Entry(String workName, String workoutIds, long triggerAt, int contentHash) {
+            this.workName = workName;
+            this.workoutIds = workoutIds;
+            this.triggerAt = triggerAt;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private final AtomicFile file;
+    private Map<String, Entry> entries;
+    // Trigger keys shown early, with their time
+    private final Map<String, Long> delivered = new HashMap<>();
+
+    ReminderIndex(@NonNull File file) {
+        this.file = new AtomicFile(file);
+    }
+
+    /**
+     * Armed jobs by unique work name
+     */
+    @WorkerThread
+    @NonNull
+    Map<String, Entry> entries() {
+        if (entries == null) {
+            entries = read();
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+
+    @WorkerThread
+    void replaceAll(@NonNull Collection<Entry> armed) {
+        entries();
+        Map<String, Entry> updated = new HashMap<>(armed.size());
+        for (Entry entry : armed) {
+            updated.put(entry.workName, entry);
+        }
+        entries = updated;
+        write(updated);
+    }
+
+    /**
+     * Whether the trigger with this key has already been shown
+     */
+    @WorkerThread
+    boolean isDelivered(@NonNull String triggerKey) {
+        entries();
+        return delivered.containsKey(triggerKey);
+    }
+
+    /**
+     * Number of delivered triggers still in the future
+     */
+    @WorkerThread
+    int deliveredCount() {
+        entries();
+        return delivered.size();
+    }
+
+    /**
+     * Records the triggers a batch showed. Triggers whose time has passed are dropped,
+     * since the schedule no longer returns them.
+     */
+    @WorkerThread
+    void markDelivered(@NonNull String[] triggerKeys, @NonNull long[] triggerTimes, long now) {
+        entries();
+        delivered.values().removeIf(triggerAt -> triggerAt <= now);
+        for (int i = 0; i < triggerKeys.length && i < triggerTimes.length; i++) {
+            if (triggerTimes[i] > now) {
+                delivered.put(triggerKeys[i], triggerTimes[i]);
+            }
+        }
+        write(entries);
+    }
+
+    private Map<String, Entry> read() {
+        Map<String, Entry> read = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != MAGIC) {
+                return read;
+            }
+            int version = in.readInt();
+            if (version > FORMAT_VERSION) {
+                return read;
+            }
+            // Old entries are still read so the jobs they name get cancelled
+            if (version == 2) {
+                // A time alone cannot tell which triggers were shown
+                in.readLong();
+            } else if (version >= 3) {
+                int deliveredCount = in.readInt();
+                for (int i = 0; i < deliveredCount; i++) {
+                    String key = in.readUTF();
+                    delivered.put(key, in.readLong());
+                }
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry(in.readUTF(), in.readUTF(), in.readLong(), in.readInt());
+                read.put(entry.workName, entry);
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing armed yet
+        } catch (IOException e) {
+            // Jobs missing from the index are re-armed with REPLACE, so starting empty is safe
+            Log.e(TAG, "Error reading reminder index", e);
+            read.clear();
+            delivered.clear();
+        }
+        return read;
+    }
+
+    private void write(Map<String, Entry> toWrite) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(delivered.size());
+            for (Map.Entry<String, Long> entry : delivered.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.writeInt(toWrite.size());
+            for (Entry entry : toWrite.values()) {
+                out.writeUTF(entry.workName);
+                out.writeUTF(entry.workoutIds);
+                out.writeLong(entry.triggerAt);
+                out.writeInt(entry.contentHash);
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing reminder index", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+}
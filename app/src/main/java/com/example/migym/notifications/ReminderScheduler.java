@@ -0,0 +1,391 @@
+package com.example.migym.notifications;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.preference.PreferenceManager;
+import androidx.room.InvalidationTracker;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import com.example.migym.calendar.WorkoutCalendar;
+import com.example.migym.data.AppDatabase;
+import com.example.migym.data.WorkoutDao;
+import com.example.migym.models.WorkoutReminder;
+import com.example.migym.utils.AppExecutors;
+import com.example.migym.utils.PreferenceKeys;
+import com.example.migym.utils.PreferenceStore;
+import com.example.migym.workers.WorkoutNotificationWorker;
+import java.io.File;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps only the next {@link #WINDOW_SIZE} reminder and completion notifications of the
+ * weekly schedule armed in WorkManager.
+ * <p>
+ * The upcoming triggers are computed from the schedule and grouped into batches: a trigger
+ * that falls within the batch window of the first one in a batch joins it. Each batch is
+ * enqueued as its own unique work, so back-to-back classes wake the device once and get
+ * one grouped notification. A batch runs at its first trigger, so the others in it are
+ * shown up to the window early. The window is set in the settings screen.
+ * <p>
+ * Every worker calls {@link #onBatchShown} after posting its notifications, which moves
+ * the window forward, so the recurrence never runs out and the number of jobs does not
+ * grow with the number of workouts. It also counts the wakeups, see {@link #getWakeupsSaved()}.
+ * <p>
+ * What is armed is recorded in a {@link ReminderIndex}. Re-arming compares it with the new
+ * window and only cancels and enqueues the batches that differ, so saving a workout whose
+ * time and title did not change touches no job. Any change to the workouts table re-arms.
+ */
+public class ReminderScheduler {
+    private static final String TAG = "ReminderScheduler";
+    // Triggers armed at once
+    static final int WINDOW_SIZE = 8;
+    // Tag of every job enqueued here
+    static final String TAG_REMINDERS = "workout_reminders";
+    private static final String INDEX_FILE = "reminder_index.bin";
+    // Minutes, as a string, in the default preferences
+    public static final String PREF_BATCH_WINDOW = "reminder_batch_window";
+    private static final int DEFAULT_BATCH_MINUTES = 10;
+    private static final int MAX_BATCH_MINUTES = 30;
+    // Every workout starts again within a week, plus the hour a clock change can add
+    private static final long NEXT_START_SPAN_MILLIS = TimeUnit.DAYS.toMillis(8);
+
+    private static volatile ReminderScheduler instance;
+
+    private final WorkManager workManager;
+    private final WorkoutDao workoutDao;
+    private final ReminderIndex index;
+    private final SharedPreferences settings;
+    private final PreferenceStore store;
+    private final AppExecutors executors = AppExecutors.getInstance();
+    private final AtomicBoolean rearmScheduled = new AtomicBoolean();
+    // Held here because SharedPreferences only keeps a weak reference
+    private final SharedPreferences.OnSharedPreferenceChangeListener settingsListener = (prefs, key) -> {
+        if (PREF_BATCH_WINDOW.equals(key)) {
+            rearm();
+        }
+    };
+
+    /**
+     * One notification of one occurrence of a workout
+     */
+    static final class Trigger {
+        final String workoutId;
+        final String title;
+        final String type;
+        final long triggerAt;
+
+        Trigger(String workoutId, String title, String type, long triggerAt) {
+            this.workoutId = workoutId;
+            this.title = title;
+            this.type = type;
+            this.triggerAt = triggerAt;
+        }
+
+        String key() {
+            return type + "_" + workoutId + "_" + TimeUnit.MILLISECONDS.toMinutes(triggerAt);
+        }
+
+        int contentHash() {
+            return Objects.hash(title, type, triggerAt);
+        }
+    }
+
+    /**
+     * Triggers shown together by one job, earliest first
+     */
+    static final class Batch {
+        final List<Trigger> triggers;
+
+        Batch(List<Trigger> triggers) {
+            this.triggers = triggers;
+        }
+
+        long triggerAt() {
+            return triggers.get(0).triggerAt;
+        }
+
+        // Unique per first occurrence, so next week's batch is a new job
+        String workName() {
+            return "batch_" + TimeUnit.MILLISECONDS.toMinutes(triggerAt());
+        }
+
+        int contentHash() {
+            int hash = 1;
+            for (Trigger trigger : triggers) {
+                hash = 31 * hash + trigger.key().hashCode();
+                hash = 31 * hash + trigger.contentHash();
+            }
+            return hash;
+        }
+
+        String workoutIds() {
+            StringBuilder ids = new StringBuilder();
+            for (Trigger trigger : triggers) {
+                if (ids.length() > 0) ids.append(',');
+                ids.append(trigger.workoutId);
+            }
+            return ids.toString();
+        }
+    }
+
+    private ReminderScheduler(Context context) {
+        AppDatabase database = AppDatabase.getInstance(context);
+        this.workManager = WorkManager.getInstance(context);
+        this.workoutDao = database.workoutDao();
+        // Not backed up: it describes this device's WorkManager jobs
+        this.index = new ReminderIndex(new File(context.getNoBackupFilesDir(), INDEX_FILE));
+        this.settings = PreferenceManager.getDefaultSharedPreferences(context);
+        this.store = PreferenceStore.getInstance(context);
+        settings.registerOnSharedPreferenceChangeListener(settingsListener);
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("workouts") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                rearm();
+            }
+        });
+    }
+
+    public static ReminderScheduler getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (ReminderScheduler.class) {
+                if (instance == null) {
+                    instance = new ReminderScheduler(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Re-arms the window in the background. Calls made before it runs are merged.
+     */
+    public void rearm() {
+        if (rearmScheduled.compareAndSet(false, true)) {
+            executors.diskIO().execute("reminder-rearm", () -> {
+                rearmScheduled.set(false);
+                rearmNow();
+            });
+        }
+    }
+
+    /**
+     * Arms the next batches of the schedule, cancelling and enqueuing only what changed
+     */
+    @WorkerThread
+    public synchronized void rearmNow() {
+        cancelLegacyOnce();
+        long now = System.currentTimeMillis();
+        long batchWindow = batchWindowMillis();
+        // Triggers already shown early by a batch are not armed again; the rest of that
+        // time range still is, e.g. a workout added after the batch ran
+        List<Trigger> window = new ArrayList<>(WINDOW_SIZE);
+        for (Trigger trigger : upcoming(workoutDao.getEnabledRemindersSync(), now, WINDOW_SIZE + index.deliveredCount())) {
+            if (window.size() < WINDOW_SIZE && !index.isDelivered(trigger.key())) {
+                window.add(trigger);
+            }
+        }
+        List<Batch> batches = batch(window, batchWindow);
+        Map<String, ReminderIndex.Entry> armed = index.entries();
+
+        Map<String, Batch> wanted = new HashMap<>(batches.size());
+        for (Batch batch : batches) {
+            wanted.put(batch.workName(), batch);
+        }
+
+        int cancelled = 0;
+        for (ReminderIndex.Entry entry : armed.values()) {
+            // Jobs whose time has come are running or done, they are only dropped from the index
+            if (entry.triggerAt > now && !wanted.containsKey(entry.workName)) {
+                workManager.cancelUniqueWork(entry.workName);
+                cancelled++;
+            }
+        }
+
+        int enqueued = 0;
+        List<ReminderIndex.Entry> nowArmed = new ArrayList<>(batches.size());
+        for (Batch batch : batches) {
+            ReminderIndex.Entry entry = armed.get(batch.workName());
+            if (entry == null || entry.contentHash != batch.contentHash()) {
+                enqueue(batch);
+                enqueued++;
+            }
+            nowArmed.add(new ReminderIndex.Entry(batch.workName(), batch.workoutIds(),
+                    batch.triggerAt(), batch.contentHash()));
+        }
+
+        if (cancelled > 0 || enqueued > 0 || nowArmed.size() != armed.size()) {
+            index.replaceAll(nowArmed);
+        }
+        Log.d(TAG, "Window of " + window.size() + " reminders in " + batches.size() + " batches: "
+                + enqueued + " enqueued, " + cancelled + " cancelled");
+    }
+
+    /**
+     * Called by the worker once a batch is shown: counts the wakeup and arms what comes next
+     * @param triggers Notifications shown in the batch
+     * @param triggerKeys Keys of the batch's triggers, see {@link Trigger#key()}
+     * @param triggerTimes Time of each of those triggers
+     */
+    @WorkerThread
+    public synchronized void onBatchShown(int triggers, @NonNull String[] triggerKeys, @NonNull long[] triggerTimes) {
+        index.markDelivered(triggerKeys, triggerTimes, System.currentTimeMillis());
+        store.update(editor -> editor
+                .set(PreferenceKeys.REMINDER_WAKEUPS, editor.get(PreferenceKeys.REMINDER_WAKEUPS) + 1)
+                .set(PreferenceKeys.REMINDER_TRIGGERS_SHOWN,
+                        editor.get(PreferenceKeys.REMINDER_TRIGGERS_SHOWN) + triggers));
+        rearmNow();
+    }
+
+    /**
+     * Jobs that have run to show reminders
+     */
+    public int getWakeups() {
+        return store.get(PreferenceKeys.REMINDER_WAKEUPS);
+    }
+
+    /**
+     * Reminder and completion notifications shown
+     */
+    public int getTriggersShown() {
+        return store.get(PreferenceKeys.REMINDER_TRIGGERS_SHOWN);
+    }
+
+    /**
+     * Wakeups avoided by showing several notifications in one, compared with a job each
+     */
+    public int getWakeupsSaved() {
+        return getTriggersShown() - getWakeups();
+    }
+
+    /**
+     * Cancels every reminder job, and only those, e.g. after deleting all workouts
+     */
+    @WorkerThread
+    public synchronized void cancelAll() {
+        workManager.cancelAllWorkByTag(TAG_REMINDERS);
+        index.replaceAll(Collections.emptyList());
+    }
+
+    /**
+     * Cancels the jobs enqueued per workout before the rolling window existed. They had
+     * no tag, so each unique name is cancelled; this runs once, on the first re-arm.
+     */
+    private void cancelLegacyOnce() {
+        if (store.get(PreferenceKeys.LEGACY_REMINDERS_CANCELLED)) return;
+        List<String> workoutIds = workoutDao.getAllWorkoutIdsSync();
+        for (String workoutId : workoutIds) {
+            workManager.cancelUniqueWork("reminder_" + workoutId);
+            workManager.cancelUniqueWork("completion_" + workoutId);
+        }
+        store.update(editor -> editor.set(PreferenceKeys.LEGACY_REMINDERS_CANCELLED, true));
+        Log.d(TAG, "Cancelled legacy jobs of " + workoutIds.size() + " workouts");
+    }
+
+    /**
+     * Next trigger of every enabled workout after the given time
+     * @return At most limit triggers, earliest first
+     */
+    @NonNull
+    static List<Trigger> upcoming(@NonNull List<WorkoutReminder> reminders, long from, int limit) {
+        long maxReminderOffset = 0;
+        long maxCompletionOffset = 0;
+        for (WorkoutReminder reminder : reminders) {
+            maxReminderOffset = Math.max(maxReminderOffset, TimeUnit.MINUTES.toMillis(reminder.getNotificationTime()));
+            maxCompletionOffset = Math.max(maxCompletionOffset, TimeUnit.MINUTES.toMillis(reminder.getDuration()));
+        }
+        // One calendar per schedule snapshot, so the week's start times are computed once for every workout
+        WorkoutCalendar calendar = new WorkoutCalendar(reminders, ZoneId.systemDefault());
+        List<Trigger> triggers = new ArrayList<>(reminders.size() * 2);
+        Set<WorkoutReminder> reminded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<WorkoutReminder> completed = Collections.newSetFromMap(new IdentityHashMap<>());
+        long to = from + maxReminderOffset + NEXT_START_SPAN_MILLIS;
+        calendar.forEachBetween(from - maxCompletionOffset, to, (reminder, start) -> {
+            // Occurrences arrive in time order, so the first one past the window start is the next
+            long reminderAt = start - TimeUnit.MINUTES.toMillis(reminder.getNotificationTime());
+            if (reminderAt > from && reminded.add(reminder)) {
+                triggers.add(new Trigger(reminder.getId(), reminder.getTitle(),
+                        WorkoutNotificationWorker.TYPE_REMINDER, reminderAt));
+            }
+            long completionAt = start + TimeUnit.MINUTES.toMillis(reminder.getDuration());
+            if (completionAt > from && completed.add(reminder)) {
+                triggers.add(new Trigger(reminder.getId(), reminder.getTitle(),
+                        WorkoutNotificationWorker.TYPE_COMPLETION, completionAt));
+            }
+        });
+        Collections.sort(triggers, (a, b) -> Long.compare(a.triggerAt, b.triggerAt));
+        return triggers.size() > limit ? new ArrayList<>(triggers.subList(0, limit)) : triggers;
+    }
+
+    /**
+     * Groups sorted triggers: each batch holds the triggers up to windowMillis after its first
+     */
+    @NonNull
+    static List<Batch> batch(@NonNull List<Trigger> triggers, long windowMillis) {
+        List<Batch> batches = new ArrayList<>();
+        List<Trigger> current = null;
+        for (Trigger trigger : triggers) {
+            if (current == null || trigger.triggerAt - current.get(0).triggerAt > windowMillis) {
+                current = new ArrayList<>();
+                batches.add(new Batch(current));
+            }
+            current.add(trigger);
+        }
+        return batches;
+    }
+
+    private long batchWindowMillis() {
+        int minutes = DEFAULT_BATCH_MINUTES;
+        try {
+            minutes = Integer.parseInt(settings.getString(PREF_BATCH_WINDOW, String.valueOf(DEFAULT_BATCH_MINUTES)));
+        } catch (NumberFormatException ignored) {}
+        return TimeUnit.MINUTES.toMillis(Math.max(0, Math.min(minutes, MAX_BATCH_MINUTES)));
+    }
+
+    private void enqueue(Batch batch) {
+        int size = batch.triggers.size();
+        String[] ids = new String[size];
+        String[] titles = new String[size];
+        String[] types = new String[size];
+        String[] keys = new String[size];
+        long[] times = new long[size];
+        for (int i = 0; i < size; i++) {
+            Trigger trigger = batch.triggers.get(i);
+            ids[i] = trigger.workoutId;
+            titles[i] = trigger.title;
+            types[i] = trigger.type;
+            keys[i] = trigger.key();
+            times[i] = trigger.triggerAt;
+        }
+        Data data = new Data.Builder()
+            .putStringArray(WorkoutNotificationWorker.KEY_WORKOUT_IDS, ids)
+            .putStringArray(WorkoutNotificationWorker.KEY_WORKOUT_TITLES, titles)
+            .putStringArray(WorkoutNotificationWorker.KEY_NOTIFICATION_TYPES, types)
+            .putStringArray(WorkoutNotificationWorker.KEY_TRIGGER_KEYS, keys)
+            .putLongArray(WorkoutNotificationWorker.KEY_TRIGGER_TIMES, times)
+            .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(WorkoutNotificationWorker.class)
+            .setInputData(data)
+            .setInitialDelay(Math.max(0L, batch.triggerAt() - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+            .addTag(TAG_REMINDERS)
+            .build();
+
+        // Replaces a job with the same time but an old title or other triggers
+        workManager.enqueueUniqueWork(batch.workName(), ExistingWorkPolicy.REPLACE, request);
+    }
+}
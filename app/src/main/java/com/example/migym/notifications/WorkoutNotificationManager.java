@@ -2,23 +2,11 @@ package com.example.migym.notifications;
 
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.os.Build;
-import androidx.core.app.NotificationCompat;
-import androidx.work.Data;
-import androidx.work.ExistingWorkPolicy;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
-import com.example.migym.R;
+import androidx.annotation.WorkerThread;
 import com.example.migym.models.Workout;
-import com.example.migym.MainActivity;
-import com.example.migym.workers.WorkoutNotificationWorker;
-import java.util.concurrent.TimeUnit;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
+import com.example.migym.models.WorkoutReminder;
 
 public class WorkoutNotificationManager {
     public static final String CHANNEL_ID = "workout_notifications";
@@ -28,12 +16,12 @@ public class WorkoutNotificationManager {
 
     private final Context context;
     private final NotificationManager notificationManager;
-    private final WorkManager workManager;
+    private final ReminderScheduler reminderScheduler;
 
     public WorkoutNotificationManager(Context context) {
         this.context = context;
         this.notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        this.workManager = WorkManager.getInstance(context);
+        this.reminderScheduler = ReminderScheduler.getInstance(context);
         createNotificationChannel();
     }
 
@@ -50,90 +38,29 @@ public class WorkoutNotificationManager {
     }
 
     public void scheduleWorkoutNotification(Workout workout) {
-        if (!workout.isNotificationEnabled()) {
-            return;
-        }
-
-        // Cancel any existing notifications for this workout
-        cancelWorkoutNotification(workout.getId());
-
-        // Schedule reminder notification
-        Data reminderData = new Data.Builder()
-            .putString(WorkoutNotificationWorker.KEY_WORKOUT_TITLE, workout.getTitle())
-            .putString(WorkoutNotificationWorker.KEY_NOTIFICATION_TYPE, WorkoutNotificationWorker.TYPE_REMINDER)
-            .build();
-
-        OneTimeWorkRequest reminderRequest = new OneTimeWorkRequest.Builder(WorkoutNotificationWorker.class)
-            .setInputData(reminderData)
-            .setInitialDelay(calculateReminderDelay(workout), TimeUnit.MILLISECONDS)
-            .build();
-
-        workManager.enqueueUniqueWork(
-            "reminder_" + workout.getId(),
-            ExistingWorkPolicy.REPLACE,
-            reminderRequest
-        );
-
-        // Schedule completion notification
-        Data completionData = new Data.Builder()
-            .putString(WorkoutNotificationWorker.KEY_WORKOUT_TITLE, workout.getTitle())
-            .putString(WorkoutNotificationWorker.KEY_NOTIFICATION_TYPE, WorkoutNotificationWorker.TYPE_COMPLETION)
-            .build();
-
-        OneTimeWorkRequest completionRequest = new OneTimeWorkRequest.Builder(WorkoutNotificationWorker.class)
-            .setInputData(completionData)
-            .setInitialDelay(calculateCompletionDelay(workout), TimeUnit.MILLISECONDS)
-            .build();
-
-        workManager.enqueueUniqueWork(
-            "completion_" + workout.getId(),
-            ExistingWorkPolicy.REPLACE,
-            completionRequest
-        );
+        scheduleWorkoutNotification(WorkoutReminder.from(workout));
     }
 
-    private long calculateReminderDelay(Workout workout) {
-        long currentTime = System.currentTimeMillis();
-        long workoutTime = getWorkoutTimeInMillis(workout);
-        long reminderTime = workoutTime - TimeUnit.MINUTES.toMillis(workout.getNotificationTime());
-        return Math.max(0L, reminderTime - currentTime);
-    }
-
-    private long calculateCompletionDelay(Workout workout) {
-        long currentTime = System.currentTimeMillis();
-        long workoutTime = getWorkoutTimeInMillis(workout);
-        long completionTime = workoutTime + TimeUnit.MINUTES.toMillis(workout.getDuration());
-        return Math.max(0L, completionTime - currentTime);
-    }
-
-    private long getWorkoutTimeInMillis(Workout workout) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.DAY_OF_WEEK, workout.getDayOfWeek());
-        
-        String[] timeParts = workout.getTime().split(":");
-        int hour = Integer.parseInt(timeParts[0]);
-        int minute = Integer.parseInt(timeParts[1]);
-        
-        calendar.set(Calendar.HOUR_OF_DAY, hour);
-        calendar.set(Calendar.MINUTE, minute);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-
-        // If the time has already passed today, schedule for next week
-        if (calendar.getTimeInMillis() < System.currentTimeMillis()) {
-            calendar.add(Calendar.WEEK_OF_YEAR, 1);
-        }
-
-        return calendar.getTimeInMillis();
+    /**
+     * Brings the armed notifications in line with the saved workout. Only the next few
+     * triggers of the whole schedule are armed and only those that changed are touched,
+     * see {@link ReminderScheduler}.
+     */
+    public void scheduleWorkoutNotification(WorkoutReminder workout) {
+        reminderScheduler.rearm();
     }
 
     public void cancelWorkoutNotification(String workoutId) {
         if (workoutId == null) return;
-        workManager.cancelUniqueWork("reminder_" + workoutId);
-        workManager.cancelUniqueWork("completion_" + workoutId);
+        // The deleted workout leaves the window and the next trigger takes its place
+        reminderScheduler.rearm();
     }
 
+    /**
+     * Cancels the workout notifications without touching other background work
+     */
+    @WorkerThread
     public void cancelAllNotifications() {
-        workManager.cancelAllWork();
+        reminderScheduler.cancelAll();
     }
 }
\ No newline at end of file
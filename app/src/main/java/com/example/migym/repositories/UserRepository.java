@@ -2,25 +2,29 @@ package com.example.migym.repositories;
 
 import android.content.Context;
 import android.net.Uri;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.example.migym.models.User;
 import com.example.migym.data.AppDatabase;
 import com.example.migym.data.UserDao;
+import com.example.migym.utils.AppExecutors;
+import com.example.migym.utils.Futures;
 import com.example.migym.utils.LocalImageStorage;
 import com.example.migym.utils.UserPreferences;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.auth.FirebaseUser;
 
 public class UserRepository {
@@ -30,10 +34,9 @@ public class UserRepository {
     
     private final Context context;
     private final UserDao userDao;
-    private final ExecutorService executorService;
+    private final AppExecutors executors = AppExecutors.getInstance();
     private final LocalImageStorage imageStorage;
     private final MutableLiveData<User> currentUser;
-    private final Handler mainHandler;
     private final UserPreferences userPreferences;
 
     public interface OnProfileUpdateListener {
@@ -56,25 +59,28 @@ public class UserRepository {
         this.context = context.getApplicationContext();
         AppDatabase db = AppDatabase.getInstance(context);
         this.userDao = db.userDao();
-        this.executorService = Executors.newSingleThreadExecutor();
         this.imageStorage = new LocalImageStorage(context);
         this.currentUser = new MutableLiveData<>();
-        this.mainHandler = new Handler(Looper.getMainLooper());
         this.userPreferences = new UserPreferences(context);
         
         loadCurrentUser();
     }
 
     private void loadCurrentUser() {
-        executorService.execute(() -> {
-            final User user = userDao.getUserSync();
+        loadLocalUser().thenAccept(currentUser::postValue);
+    }
+
+    /**
+     * Reads the stored user, creating an empty one the first time
+     */
+    public CompletableFuture<User> loadLocalUser() {
+        return Futures.supplyAsync(executors.diskIO(), "user-load", () -> {
+            User user = userDao.getUserSync();
             if (user == null) {
-                final User newUser = new User();
-                userDao.insert(newUser);
-                postToMainThread(() -> currentUser.setValue(newUser));
-            } else {
-                postToMainThread(() -> currentUser.setValue(user));
+                user = new User();
+                userDao.insert(user);
             }
+            return user;
         });
     }
 
@@ -82,17 +88,15 @@ public class UserRepository {
         return currentUser;
     }
 
-    public void updateUserProfile(User user, OnProfileUpdateListener listener) {
-        try {
-            // Guardar los datos del usuario en las preferencias
-            userPreferences.saveName(user.getName());
-            userPreferences.saveEmail(user.getEmail());
-            userPreferences.saveWeight(user.getWeight());
-            userPreferences.saveHeight(user.getHeight());
-            userPreferences.saveAge(user.getAge());
-            userPreferences.saveHeartProblems(user.hasHeartProblems());
-            userPreferences.saveHeartProblemsDetails(user.getHeartProblemsDetails());
-            
+    /**
+     * Guarda el perfil en las preferencias y copia la imagen nueva, fuera del hilo principal
+     * @return Futuro con la URL de la foto del usuario
+     */
+    public CompletableFuture<String> updateUserProfile(User user) {
+        return Futures.supplyAsync(executors.diskIO(), "user-profile-save", () -> {
+            // Guardar los datos del usuario en las preferencias, en una sola escritura
+            userPreferences.saveProfile(user);
+
             // Si hay una nueva imagen, guardarla
             if (user.getPhotoUrl() != null) {
                 Uri imageUri = Uri.parse(user.getPhotoUrl());
@@ -101,34 +105,49 @@ public class UserRepository {
                     userPreferences.saveProfileImagePath(imagePath);
                 }
             }
-            
-            listener.onSuccess(user.getPhotoUrl());
-        } catch (Exception e) {
-            Log.e(TAG, "Error al actualizar el perfil", e);
-            listener.onError("Error al actualizar el perfil: " + e.getMessage());
-        }
+            return user.getPhotoUrl();
+        });
     }
 
-    public void uploadProfileImage(Uri photoUri, OnProfileUpdateListener listener) {
+    public void updateUserProfile(User user, OnProfileUpdateListener listener) {
+        Futures.onMainThread(updateUserProfile(user), new Futures.Callback<String>() {
+            @Override
+            public void onSuccess(String photoUrl) {
+                listener.onSuccess(photoUrl);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                Log.e(TAG, "Error al actualizar el perfil", error);
+                listener.onError("Error al actualizar el perfil: " + Futures.messageOf(error));
+            }
+        });
+    }
+
+    /**
+     * Sube la imagen a Firebase Storage y guarda su URL de descarga.
+     * Cancelar el futuro cancela la subida.
+     * @param progress Recibe el progreso entre 0 y 1 en el hilo principal, puede ser null
+     * @return Futuro con la URL de descarga
+     */
+    public CompletableFuture<String> uploadProfileImage(Uri photoUri, @Nullable DoubleConsumer progress) {
         if (photoUri == null) {
-            listener.onError("No se ha seleccionado ninguna imagen");
-            return;
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalArgumentException("No se ha seleccionado ninguna imagen"));
+            return failed;
         }
 
-        try {
-            // Subir la imagen a Firebase Storage
-            FirebaseStorage storage = FirebaseStorage.getInstance();
-            StorageReference storageRef = storage.getReference();
-            String fileName = "profile_" + System.currentTimeMillis() + ".jpg";
-            StorageReference photoRef = storageRef.child("profile_images/" + fileName);
-
-            UploadTask uploadTask = photoRef.putFile(photoUri);
-            uploadTask.addOnProgressListener(taskSnapshot -> {
-                double progress = (100.0 * taskSnapshot.getBytesTransferred()) / taskSnapshot.getTotalByteCount();
-                listener.onProgress(progress / 100.0);
-            });
-            uploadTask.addOnSuccessListener(taskSnapshot -> {
-                photoRef.getDownloadUrl().addOnSuccessListener(uri -> {
+        String fileName = "profile_" + System.currentTimeMillis() + ".jpg";
+        StorageReference photoRef = FirebaseStorage.getInstance().getReference().child("profile_images/" + fileName);
+        UploadTask uploadTask = photoRef.putFile(photoUri);
+        if (progress != null) {
+            uploadTask.addOnProgressListener(taskSnapshot -> progress.accept(
+                    (double) taskSnapshot.getBytesTransferred() / taskSnapshot.getTotalByteCount()));
+        }
+
+        CompletableFuture<String> upload = Futures.fromTask(uploadTask)
+                .thenCompose(taskSnapshot -> Futures.fromTask(photoRef.getDownloadUrl()))
+                .thenApply(uri -> {
                     String downloadUrl = uri.toString();
                     // Guardar la URL en preferencias
                     userPreferences.saveProfileImagePath(downloadUrl);
@@ -138,18 +157,34 @@ public class UserRepository {
                         currentUserValue.setPhotoUrl(downloadUrl);
                         currentUser.postValue(currentUserValue);
                     }
-                    listener.onSuccess(downloadUrl);
-                }).addOnFailureListener(e -> {
-                    listener.onError("No se pudo obtener la URL de descarga de la imagen");
+                    return downloadUrl;
                 });
-            });
-            uploadTask.addOnFailureListener(e -> {
-                listener.onError("Error al subir la imagen: " + e.getMessage());
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error inesperado al subir la imagen", e);
-            listener.onError("Error inesperado al subir la imagen");
+        upload.whenComplete((url, error) -> {
+            if (upload.isCancelled()) {
+                uploadTask.cancel();
+            }
+        });
+        return upload;
+    }
+
+    public void uploadProfileImage(Uri photoUri, OnProfileUpdateListener listener) {
+        if (photoUri == null) {
+            listener.onError("No se ha seleccionado ninguna imagen");
+            return;
         }
+
+        Futures.onMainThread(uploadProfileImage(photoUri, listener::onProgress), new Futures.Callback<String>() {
+            @Override
+            public void onSuccess(String downloadUrl) {
+                listener.onSuccess(downloadUrl);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                Log.e(TAG, "Error al subir la imagen", error);
+                listener.onError("Error al subir la imagen: " + Futures.messageOf(error));
+            }
+        });
     }
 
     public void logout(OnLogoutListener listener) {
@@ -170,16 +205,12 @@ public class UserRepository {
         }
     }
 
-    private void postToMainThread(Runnable runnable) {
-        mainHandler.post(runnable);
-    }
-
     public LocalImageStorage getImageStorage() {
         return imageStorage;
     }
 
     public void cleanup() {
-        executorService.shutdown();
+        // Los hilos son compartidos por toda la app (AppExecutors), no se cierran aquí
     }
 
     public boolean isUserAuthenticated() {
@@ -187,45 +218,86 @@ public class UserRepository {
     }
 
     // Guardar perfil en Firestore
+    public CompletableFuture<Void> saveUserProfileToFirebase(User user) {
+        FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (firebaseUser == null) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Usuario no autenticado"));
+            return failed;
+        }
+        return Futures.fromTask(FirebaseFirestore.getInstance()
+                .collection("users").document(firebaseUser.getUid())
+                .set(user));
+    }
+
     public void saveUserProfileToFirebase(User user, OnProfileUpdateListener listener) {
+        CompletableFuture<Void> future = saveUserProfileToFirebase(user);
+        if (listener == null) return;
+        Futures.onMainThread(future, new Futures.Callback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                listener.onSuccess(user.getPhotoUrl());
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                listener.onError("Error al guardar perfil en la nube: " + Futures.messageOf(error));
+            }
+        });
+    }
+
+    /**
+     * Actualiza solo los campos indicados del perfil en Firestore, sin reescribir el documento
+     * @param changes Nombre del campo en User y su nuevo valor
+     */
+    public CompletableFuture<Void> updateUserFields(Map<String, Object> changes) {
         FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
         if (firebaseUser == null) {
-            if (listener != null) listener.onError("Usuario no autenticado");
-            return;
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Usuario no autenticado"));
+            return failed;
         }
-        String uid = firebaseUser.getUid();
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("users").document(uid)
-            .set(user)
-            .addOnSuccessListener(aVoid -> {
-                if (listener != null) listener.onSuccess(user.getPhotoUrl());
-            })
-            .addOnFailureListener(e -> {
-                if (listener != null) listener.onError("Error al guardar perfil en la nube: " + e.getMessage());
-            });
+        return Futures.fromTask(FirebaseFirestore.getInstance()
+                .collection("users").document(firebaseUser.getUid())
+                .set(changes, SetOptions.merge()));
     }
 
     // Cargar perfil desde Firestore
-    public void loadUserProfileFromFirebase(OnUserLoadedListener listener) {
+    public CompletableFuture<User> loadUserProfileFromFirebase() {
         FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
         if (firebaseUser == null) {
-            if (listener != null) listener.onError("Usuario no autenticado");
-            return;
+            CompletableFuture<User> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Usuario no autenticado"));
+            return failed;
         }
-        String uid = firebaseUser.getUid();
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("users").document(uid)
-            .get()
-            .addOnSuccessListener(documentSnapshot -> {
-                User user = documentSnapshot.toObject(User.class);
-                if (user != null) {
-                    if (listener != null) listener.onUserLoaded(user);
-                } else {
-                    if (listener != null) listener.onError("Perfil no encontrado en la nube");
-                }
-            })
-            .addOnFailureListener(e -> {
-                if (listener != null) listener.onError("Error al cargar perfil de la nube: " + e.getMessage());
-            });
+        return Futures.fromTask(FirebaseFirestore.getInstance()
+                .collection("users").document(firebaseUser.getUid())
+                .get())
+                .thenApply(documentSnapshot -> {
+                    User user = documentSnapshot.toObject(User.class);
+                    if (user == null) {
+                        throw new IllegalStateException("Perfil no encontrado en la nube");
+                    }
+                    return user;
+                });
+    }
+
+    public void loadUserProfileFromFirebase(OnUserLoadedListener listener) {
+        CompletableFuture<User> future = loadUserProfileFromFirebase();
+        if (listener == null) return;
+        Futures.onMainThread(future, new Futures.Callback<User>() {
+            @Override
+            public void onSuccess(User user) {
+                listener.onUserLoaded(user);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                // Los errores propios ya traen su mensaje, los de Firestore se explican
+                listener.onError(error instanceof IllegalStateException
+                        ? Futures.messageOf(error)
+                        : "Error al cargar perfil de la nube: " + Futures.messageOf(error));
+            }
+        });
     }
-} 
\ No newline at end of file
+}
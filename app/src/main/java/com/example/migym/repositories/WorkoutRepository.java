@@ -1,37 +1,83 @@
 package com.example.migym.repositories;
 
 import android.app.Application;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 import com.example.migym.data.AppDatabase;
 import com.example.migym.data.WorkoutDao;
+import com.example.migym.data.WorkoutImportResult;
+import com.example.migym.data.WorkoutIntervalIndex;
+import com.example.migym.data.WorkoutLogDao;
+import com.example.migym.data.WorkoutScheduleStore;
+import com.example.migym.data.WorkoutWeek;
+import com.example.migym.data.WorkoutWriteResult;
 import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutLog;
+import com.example.migym.models.WorkoutSummary;
+import com.example.migym.utils.AppExecutors;
+import com.example.migym.utils.Futures;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class WorkoutRepository {
+    // Rows per write batch; also keeps IN (...) lists below SQLite's 999 variable limit
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
+    private final AppDatabase db;
     private final WorkoutDao workoutDao;
+    private final WorkoutLogDao workoutLogDao;
+    private final WorkoutScheduleStore scheduleStore;
     private final LiveData<List<Workout>> allWorkouts;
-    private final ExecutorService executorService;
-    private final MutableLiveData<List<Workout>> workoutsByDay = new MutableLiveData<>();
+    // Both executors are owned by the database: writes are serialized, reads run concurrently
+    private final Executor writeExecutor;
+    private final Executor readExecutor;
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+    // One observable day per day of the week, shared by every page showing that day
+    private final Map<Integer, LiveData<List<Workout>>> workoutsByDay = new HashMap<>();
+    private final Map<Integer, LiveData<List<WorkoutSummary>>> summariesByDay = new HashMap<>();
+    private LiveData<WorkoutWeek> week;
 
     public interface OnWorkoutOperationListener {
         void onSuccess(Workout workout);
         void onError(String error);
     }
 
+    public interface OnWorkoutSaveListener {
+        void onSaved(WorkoutWriteResult result);
+        void onError(String error);
+    }
+
+    public interface OnBulkImportListener {
+        void onProgress(int processed);
+        void onComplete(WorkoutImportResult result);
+        void onError(String error);
+    }
+
     public interface OnWorkoutsLoadedListener {
         void onWorkoutsLoaded(List<Workout> workouts);
         void onError(String error);
     }
 
     public WorkoutRepository(Application application) {
-        AppDatabase db = AppDatabase.getInstance(application);
+        db = AppDatabase.getInstance(application);
         workoutDao = db.workoutDao();
+        workoutLogDao = db.workoutLogDao();
+        scheduleStore = WorkoutScheduleStore.getInstance(db);
         allWorkouts = workoutDao.getAllWorkouts();
-        executorService = Executors.newSingleThreadExecutor();
+        writeExecutor = db.getWriteExecutor();
+        readExecutor = db.getQueryExecutor();
     }
 
     public LiveData<List<Workout>> getAllWorkouts() {
@@ -43,62 +89,268 @@ public class WorkoutRepository {
     }
 
     public List<Workout> getWorkoutsAtTimeSync(int dayOfWeek, String time) {
-        return workoutDao.getWorkoutsAtTimeSync(dayOfWeek, time);
+        return workoutDao.getWorkoutsAtMinuteSync(dayOfWeek, Workout.computeStartMinuteOfWeek(dayOfWeek, time));
+    }
+
+    /**
+     * Finds stored workouts whose time range overlaps the given workout.
+     * Must be called from a background thread.
+     */
+    public List<Workout> findConflictsSync(Workout workout) {
+        return scheduleStore.findConflicts(workout);
+    }
+
+    /**
+     * Checks several workouts against the stored schedule at once.
+     * Must be called from a background thread.
+     */
+    public Map<Workout, List<Workout>> findConflictsSync(Collection<Workout> workouts) {
+        return scheduleStore.findConflicts(workouts);
+    }
+
+    /**
+     * Checks for conflicts and inserts or updates the workout in one database transaction
+     * @param workout Workout to save
+     * @param force Save even if it overlaps other workouts
+     * @return Future completed on the write thread; conflicts are a result, not an error
+     */
+    public CompletableFuture<WorkoutWriteResult> saveWorkout(Workout workout, boolean force) {
+        return Futures.supplyAsync(writeExecutor, () -> scheduleStore.callWrite(() -> {
+            WorkoutWriteResult result = workoutDao.saveIfNoConflict(workout, force);
+            if (result.isSaved()) {
+                scheduleStore.onSaved(result.getWorkout());
+            }
+            return result;
+        }));
     }
 
-    public void insertWorkout(Workout workout, OnWorkoutOperationListener listener) {
-        executorService.execute(() -> {
+    /**
+     * Listener version of {@link #saveWorkout(Workout, boolean)}, called on the main thread
+     */
+    public void saveWorkout(Workout workout, boolean force, OnWorkoutSaveListener listener) {
+        CompletableFuture<WorkoutWriteResult> future = saveWorkout(workout, force);
+        if (listener == null) return;
+        Futures.onMainThread(future, new Futures.Callback<WorkoutWriteResult>() {
+            @Override
+            public void onSuccess(WorkoutWriteResult result) {
+                listener.onSaved(result);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                listener.onError("Error saving workout: " + Futures.messageOf(error));
+            }
+        });
+    }
+
+    /**
+     * Imports a whole timetable in one transaction. Rows are read from the iterable and
+     * written in chunks, each chunk checked for conflicts in one batch against the stored
+     * schedule and the rows imported before it. Nothing is kept if any chunk fails, and
+     * observers see a single change when the import commits. Other writes wait on the
+     * write thread until it is done.
+     * Listener callbacks are delivered on the main thread.
+     * @param workouts Workouts to import; missing ids are generated and existing ids are replaced
+     * @param skipConflicts Skip workouts that overlap others; otherwise they are imported and
+     *                      reported with what they overlap
+     */
+    public void bulkImport(Iterable<Workout> workouts, boolean skipConflicts, OnBulkImportListener listener) {
+        writeExecutor.execute(() -> {
             try {
-                if (workout.getId() == null || workout.getId().isEmpty()) {
-                    workout.setId(UUID.randomUUID().toString());
-                }
-                workoutDao.insert(workout);
-                
-                // Forzar actualización del LiveData
-                List<Workout> workouts = workoutDao.getAllWorkoutsSync();
-                if (workoutsByDay.getValue() != null) {
-                    workoutsByDay.postValue(workouts);
-                }
-                
+                WorkoutImportResult result = scheduleStore.callWrite(
+                        () -> importInChunks(workouts, skipConflicts, listener));
                 if (listener != null) {
-                    listener.onSuccess(workout);
+                    mainThread.execute(() -> listener.onComplete(result));
                 }
             } catch (Exception e) {
                 if (listener != null) {
-                    listener.onError("Error inserting workout: " + e.getMessage());
+                    mainThread.execute(() -> listener.onError("Error importing workouts: " + Futures.messageOf(e)));
                 }
             }
         });
     }
 
+    // Runs inside the import transaction
+    private WorkoutImportResult importInChunks(Iterable<Workout> workouts, boolean skipConflicts,
+                                               OnBulkImportListener listener) {
+        // Stored rows plus every accepted chunk
+        WorkoutIntervalIndex.Growing scheduled = new WorkoutIntervalIndex.Growing();
+        scheduled.addAll(workoutDao.getAllWorkoutsSync());
+        List<Workout> saved = new ArrayList<>();
+        Map<Workout, List<Workout>> conflicts = new LinkedHashMap<>();
+        List<Workout> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        int processed = 0;
+
+        Iterator<Workout> iterator = workouts.iterator();
+        while (iterator.hasNext() || !chunk.isEmpty()) {
+            if (iterator.hasNext()) {
+                Workout workout = iterator.next();
+                if (workout == null) continue;
+                if (workout.getId() == null || workout.getId().isEmpty()) {
+                    workout.setId(UUID.randomUUID().toString());
+                }
+                chunk.add(workout);
+                if (chunk.size() < IMPORT_CHUNK_SIZE) continue;
+            }
+
+            List<Workout> accepted = checkConflicts(chunk, scheduled, conflicts, skipConflicts);
+            scheduled.addAll(accepted);
+            workoutDao.upsertAll(accepted);
+            saved.addAll(accepted);
+            processed += chunk.size();
+            chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+
+            if (listener != null) {
+                final int progress = processed;
+                mainThread.execute(() -> listener.onProgress(progress));
+            }
+        }
+        // One report for the whole import, so the week is rebuilt once
+        scheduleStore.onSavedAll(saved);
+        return skipConflicts
+                ? new WorkoutImportResult(processed, saved.size(), conflicts, Collections.emptyMap())
+                : new WorkoutImportResult(processed, saved.size(), Collections.emptyMap(), conflicts);
+    }
+
+    /**
+     * Finds what each workout of a chunk overlaps in the schedule so far or earlier in the
+     * same chunk, and records it in conflicts
+     * @return The workouts to save: all of them, or only those without conflicts when skipping
+     */
+    private static List<Workout> checkConflicts(List<Workout> chunk, WorkoutIntervalIndex.Growing scheduled,
+                                                Map<Workout, List<Workout>> conflicts, boolean skipConflicts) {
+        Map<Workout, List<Workout>> scheduledConflicts = scheduled.findConflicts(chunk);
+        Map<Workout, List<Workout>> chunkConflicts = WorkoutIntervalIndex.build(chunk).findConflicts(chunk);
+        Set<Workout> accepted = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Workout> result = new ArrayList<>(chunk.size());
+        for (Workout candidate : chunk) {
+            List<Workout> overlapping = new ArrayList<>();
+            List<Workout> earlier = scheduledConflicts.get(candidate);
+            if (earlier != null) {
+                overlapping.addAll(earlier);
+            }
+            List<Workout> sameChunk = chunkConflicts.get(candidate);
+            if (sameChunk != null) {
+                // Only the ones already accepted; a skipped workout blocks nothing
+                for (Workout other : sameChunk) {
+                    if (accepted.contains(other)) {
+                        overlapping.add(other);
+                    }
+                }
+            }
+            if (!overlapping.isEmpty()) {
+                conflicts.put(candidate, overlapping);
+                if (skipConflicts) continue;
+            }
+            accepted.add(candidate);
+            result.add(candidate);
+        }
+        return result;
+    }
+
+    /**
+     * Deletes several workouts by id in one transaction
+     */
+    public void deleteWorkouts(Collection<String> workoutIds) {
+        List<String> ids = new ArrayList<>(workoutIds);
+        writeExecutor.execute(() -> {
+            scheduleStore.runWrite(() -> {
+                for (int from = 0; from < ids.size(); from += IMPORT_CHUNK_SIZE) {
+                    workoutDao.deleteByIds(ids.subList(from, Math.min(ids.size(), from + IMPORT_CHUNK_SIZE)));
+                }
+                scheduleStore.onDeleted(ids);
+            });
+        });
+    }
+
     public void update(Workout workout) {
-        executorService.execute(() -> workoutDao.update(workout));
+        writeExecutor.execute(() -> scheduleStore.runWrite(() -> {
+            workoutDao.update(workout);
+            scheduleStore.onSaved(workout);
+        }));
     }
 
     public void delete(Workout workout) {
-        executorService.execute(() -> workoutDao.delete(workout));
+        writeExecutor.execute(() -> scheduleStore.runWrite(() -> {
+            workoutDao.delete(workout);
+            scheduleStore.onDeleted(workout.getId());
+        }));
+    }
+
+    public void deleteById(String workoutId) {
+        writeExecutor.execute(() -> scheduleStore.runWrite(() -> {
+            workoutDao.deleteById(workoutId);
+            scheduleStore.onDeleted(workoutId);
+        }));
     }
 
     public void deleteAll() {
-        executorService.execute(workoutDao::deleteAll);
+        writeExecutor.execute(() -> scheduleStore.runWrite(() -> {
+            workoutDao.deleteAll();
+            scheduleStore.onDeletedAll();
+        }));
+    }
+
+    /**
+     * Appends a completed session to the history instead of rewriting the schedule row
+     */
+    public void logCompletion(WorkoutLog log) {
+        writeExecutor.execute(() -> workoutLogDao.insert(log));
+    }
+
+    /**
+     * Sessions performed in [from, to), in epoch milliseconds
+     */
+    public LiveData<List<WorkoutLog>> getHistoryBetween(long from, long to) {
+        return workoutLogDao.getLogsBetween(from, to);
     }
 
     public List<Workout> getWorkoutsByDaySync(int dayOfWeek) {
-        return workoutDao.getWorkoutsByDaySync(dayOfWeek);
+        return scheduleStore.getWorkoutsByDay(dayOfWeek);
     }
 
+    /**
+     * Observes one day's workouts from the schedule store. Writes to other days are
+     * not delivered, since the day is compared with its previous value first.
+     */
+    @MainThread
     public LiveData<List<Workout>> getWorkoutsByDay(int dayOfWeek) {
-        executorService.execute(() -> {
-            List<Workout> workouts = workoutDao.getWorkoutsByDaySync(dayOfWeek);
-            workoutsByDay.postValue(workouts);
-        });
-        return workoutsByDay;
+        LiveData<List<Workout>> workouts = workoutsByDay.get(dayOfWeek);
+        if (workouts == null) {
+            workouts = scheduleStore.observe(store -> store.getWorkoutsByDay(dayOfWeek));
+            workoutsByDay.put(dayOfWeek, workouts);
+        }
+        return workouts;
+    }
+
+    /**
+     * Observes the list columns of one day's workouts, see {@link #getWorkoutsByDay}
+     */
+    @MainThread
+    public LiveData<List<WorkoutSummary>> getWorkoutSummariesByDay(int dayOfWeek) {
+        LiveData<List<WorkoutSummary>> summaries = summariesByDay.get(dayOfWeek);
+        if (summaries == null) {
+            summaries = scheduleStore.observe(store -> store.getSummariesByDay(dayOfWeek));
+            summariesByDay.put(dayOfWeek, summaries);
+        }
+        return summaries;
+    }
+
+    /**
+     * Observes the whole schedule grouped by day, taken from the shared schedule store
+     */
+    @MainThread
+    public LiveData<WorkoutWeek> getWeek() {
+        if (week == null) {
+            week = scheduleStore.observe(WorkoutScheduleStore::getWeek);
+        }
+        return week;
     }
 
     public void loadWorkouts() {
         // Este método es opcional ya que LiveData se actualiza automáticamente
         // pero lo mantenemos por compatibilidad
-        executorService.execute(() -> {
+        readExecutor.execute(() -> {
             List<Workout> workouts = workoutDao.getAllWorkoutsSync();
             // No necesitamos hacer nada aquí ya que LiveData se actualizará automáticamente
         });
@@ -73,7 +73,7 @@ public class WorkoutDetailFragment extends Fragment {
         binding.titleEditText.setText(workout.getTitle());
         binding.descriptionEditText.setText(workout.getDescription());
         binding.locationEditText.setText(workout.getLocation());
-        binding.daySpinner.setSelection(workout.getDayOfWeek() - 1);
+        binding.daySpinner.setSelection(workout.getDayOfWeek());
         binding.typeSpinner.setSelection(workout.getTypeAsInt());
         binding.timeEditText.setText(workout.getTime());
     }
@@ -82,7 +82,7 @@ public class WorkoutDetailFragment extends Fragment {
         String title = binding.titleEditText.getText().toString().trim();
         String description = binding.descriptionEditText.getText().toString().trim();
         String location = binding.locationEditText.getText().toString().trim();
-        int dayOfWeek = binding.daySpinner.getSelectedItemPosition() + 1;
+        int dayOfWeek = binding.daySpinner.getSelectedItemPosition();
         int type = binding.typeSpinner.getSelectedItemPosition();
         String time = binding.timeEditText.getText().toString();
 
@@ -16,7 +16,7 @@ public class WorkoutPagerAdapter extends FragmentStateAdapter {
     @NonNull
     @Override
     public Fragment createFragment(int position) {
-        return DayWorkoutsFragment.newInstance(String.valueOf(position));
+        return DayWorkoutsFragment.newInstance(position);
     }
 
     @Override
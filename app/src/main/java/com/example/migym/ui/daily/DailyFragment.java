@@ -7,22 +7,24 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.migym.R;
+import com.example.migym.data.WorkoutWeek;
 import com.example.migym.databinding.FragmentDailyBinding;
 import com.example.migym.models.Workout;
+import com.example.migym.viewmodels.WorkoutViewModel;
 import com.google.android.material.tabs.TabLayout;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 
 public class DailyFragment extends Fragment {
     private FragmentDailyBinding binding;
     private DailyWorkoutAdapter workoutAdapter;
-    private final Map<String, List<Workout>> dayWorkouts = new HashMap<>();
+    private WorkoutViewModel workoutViewModel;
+    private WorkoutWeek week = WorkoutWeek.empty();
+    // Empty state texts per tab, formatted once
+    private String[] emptyMessages;
 
     @Nullable
     @Override
@@ -34,6 +36,7 @@ public class DailyFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        workoutViewModel = new ViewModelProvider(requireActivity()).get(WorkoutViewModel.class);
         setupTabLayout();
         setupRecyclerView();
         loadWorkouts();
@@ -43,15 +46,17 @@ public class DailyFragment extends Fragment {
         if (binding == null || !isAdded()) return;
 
         String[] days = getResources().getStringArray(R.array.days_of_week);
-        for (String day : days) {
-            binding.tabLayout.addTab(binding.tabLayout.newTab().setText(day));
+        emptyMessages = new String[days.length];
+        for (int i = 0; i < days.length; i++) {
+            binding.tabLayout.addTab(binding.tabLayout.newTab().setText(days[i]));
+            emptyMessages[i] = getString(R.string.no_workouts_for_day, days[i]);
         }
 
         binding.tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
             public void onTabSelected(TabLayout.Tab tab) {
-                if (tab != null && tab.getText() != null) {
-                    updateWorkoutList(tab.getText().toString());
+                if (tab != null) {
+                    updateWorkoutList(tab.getPosition());
                 }
             }
 
@@ -87,46 +92,24 @@ public class DailyFragment extends Fragment {
     private void loadWorkouts() {
         if (binding == null || !isAdded()) return;
 
-        // TODO: Load workouts from database
-        // For now, we'll use dummy data
-        List<Workout> dummyWorkouts = new ArrayList<>();
-        dummyWorkouts.add(new Workout("Morning Run", "Cardio", 2, "08:00")); // Monday
-        dummyWorkouts.add(new Workout("Weight Training", "Strength", 2, "10:00")); // Monday
-        dummyWorkouts.add(new Workout("Yoga", "Flexibility", 3, "09:00")); // Tuesday
-        // Add more dummy workouts as needed
-
-        // Group workouts by day
-        for (Workout workout : dummyWorkouts) {
-            String day = getDayName(workout.getDayOfWeek());
-            dayWorkouts.computeIfAbsent(day, k -> new ArrayList<>()).add(workout);
-        }
-
-        // Update the list for the current tab
-        TabLayout.Tab selectedTab = binding.tabLayout.getTabAt(binding.tabLayout.getSelectedTabPosition());
-        if (selectedTab != null && selectedTab.getText() != null) {
-            updateWorkoutList(selectedTab.getText().toString());
-        }
+        // The week arrives already grouped by day, built off the main thread
+        workoutViewModel.getWeek().observe(getViewLifecycleOwner(), loaded -> {
+            week = loaded != null ? loaded : WorkoutWeek.empty();
+            updateWorkoutList(binding.tabLayout.getSelectedTabPosition());
+        });
     }
 
-    private String getDayName(int dayOfWeek) {
-        if (!isAdded()) return "";
-
-        String[] days = getResources().getStringArray(R.array.days_of_week);
-        // Convert Calendar.DAY_OF_WEEK (Sunday=1) to our array index (Monday=0)
-        int index = (dayOfWeek + 5) % 7;
-        return (index >= 0 && index < days.length) ? days[index] : "";
-    }
+    private void updateWorkoutList(int tabIndex) {
+        if (binding == null || !isAdded() || workoutAdapter == null || tabIndex < 0) return;
 
-    private void updateWorkoutList(String day) {
-        if (binding == null || !isAdded() || day == null) return;
+        // Las pestañas empiezan en lunes, que es el día 0
+        List<Workout> workouts = week.getDay(tabIndex);
+        workoutAdapter.submitList(workouts);
 
-        List<Workout> workouts = dayWorkouts.getOrDefault(day, new ArrayList<>());
-        workoutAdapter.submitList(new ArrayList<>(workouts));
-        
         // Show/hide empty state
         if (workouts.isEmpty()) {
             binding.emptyState.setVisibility(View.VISIBLE);
-            binding.emptyStateText.setText(getString(R.string.no_workouts_for_day, day));
+            binding.emptyStateText.setText(emptyMessages[tabIndex]);
         } else {
             binding.emptyState.setVisibility(View.GONE);
         }
@@ -59,11 +59,8 @@ public class DailyWorkoutAdapter extends ListAdapter<Workout, DailyWorkoutAdapte
 
         @Override
         public boolean areContentsTheSame(@NonNull Workout oldItem, @NonNull Workout newItem) {
-            return oldItem.getTitle().equals(newItem.getTitle()) &&
-                   oldItem.getDescription().equals(newItem.getDescription()) &&
-                   oldItem.getType() == newItem.getType() &&
-                   oldItem.getTime().equals(newItem.getTime()) &&
-                   oldItem.getLocation().equals(newItem.getLocation());
+            // Every write bumps the version
+            return oldItem.getVersion() == newItem.getVersion();
         }
     }
 } 
\ No newline at end of file
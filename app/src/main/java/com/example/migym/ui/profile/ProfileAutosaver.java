@@ -0,0 +1,232 @@
+package com.example.migym.ui.profile;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.migym.repositories.UserRepository;
+import com.example.migym.utils.Futures;
+import com.example.migym.utils.PreferenceKeys;
+import com.example.migym.utils.PreferenceStore;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Autoguardado del perfil.
+ * <p>
+ * Las ediciones se acumulan en un único cambio pendiente y se guardan cuando el usuario
+ * deja de escribir: en local con una sola escritura por pausa, y en Firestore solo los campos
+ * que cambiaron, con un mínimo de tiempo entre envíos. Si nada cambió no se escribe nada.
+ * Un envío fallido se reintenta con una espera que se duplica en cada fallo.
+ * Se usa solo desde el hilo principal.
+ */
+class ProfileAutosaver {
+    private static final String TAG = "ProfileAutosaver";
+    // Pausa de escritura tras la que se guarda
+    private static final long QUIET_PERIOD_MS = 600;
+    // Mínimo entre dos envíos a Firestore
+    private static final long MIN_CLOUD_INTERVAL_MS = 5000;
+    // Reintentos tras un fallo; después se espera al siguiente cambio
+    private static final int MAX_CLOUD_RETRIES = 5;
+
+    /**
+     * Campos del formulario, con su clave en las preferencias y en Firestore
+     */
+    enum Field {
+        NAME(PreferenceKeys.PROFILE_NAME, "name"),
+        AGE(PreferenceKeys.PROFILE_AGE, "age"),
+        WEIGHT(PreferenceKeys.PROFILE_WEIGHT, "weight"),
+        HEIGHT(PreferenceKeys.PROFILE_HEIGHT, "height"),
+        GENDER(PreferenceKeys.PROFILE_GENDER, "gender"),
+        HEART_PROBLEMS(PreferenceKeys.PROFILE_HEART_PROBLEMS, "heartProblems"),
+        HEART_PROBLEMS_DETAILS(PreferenceKeys.PROFILE_HEART_DETAILS, "heartProblemsDetails");
+
+        final PreferenceStore.Key<?> prefKey;
+        final String cloudKey;
+
+        Field(PreferenceStore.Key<?> prefKey, String cloudKey) {
+            this.prefKey = prefKey;
+            this.cloudKey = cloudKey;
+        }
+
+        // Las preferencias guardan el texto tal cual; Firestore, el tipo de User.
+        // Un número borrado se envía como 0, que es como User marca el campo vacío.
+        @Nullable
+        Object toCloud(Object value) {
+            try {
+                switch (this) {
+                    case AGE:
+                        return isBlank(value) ? 0 : Integer.parseInt(((String) value).trim());
+                    case WEIGHT:
+                    case HEIGHT:
+                        return isBlank(value) ? 0.0 : Double.parseDouble(((String) value).trim());
+                    default:
+                        return value;
+                }
+            } catch (NumberFormatException e) {
+                // Texto a medio escribir, se enviará cuando sea un número
+                return null;
+            }
+        }
+
+        private static boolean isBlank(Object value) {
+            return value == null || ((String) value).trim().isEmpty();
+        }
+
+        Object read(PreferenceStore.Snapshot snapshot) {
+            return snapshot.get(prefKey);
+        }
+
+        // El tipo del valor lo comprueba el editor
+        @SuppressWarnings("unchecked")
+        void write(PreferenceStore.Editor editor, Object value) {
+            editor.set((PreferenceStore.Key<Object>) prefKey, value);
+        }
+    }
+
+    private final PreferenceStore store;
+    private final UserRepository userRepository;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // Últimas ediciones, aún sin guardar
+    private final Map<Field, Object> pending = new EnumMap<>(Field.class);
+    // Lo que hay en las preferencias y lo que se sabe que hay en Firestore
+    private final Map<Field, Object> savedLocally = new EnumMap<>(Field.class);
+    private final Map<Field, Object> savedInCloud = new EnumMap<>(Field.class);
+    // Campos cambiados en local que aún no se han enviado
+    private final Map<Field, Object> cloudPending = new EnumMap<>(Field.class);
+    private boolean cloudInFlight;
+    // Momento a partir del que se puede volver a enviar
+    private long nextCloudPushAt;
+    private int cloudFailures;
+
+    private final Runnable flushLocal = this::flushLocal;
+    private final Runnable pushCloud = this::pushCloud;
+
+    ProfileAutosaver(@NonNull PreferenceStore store, @NonNull UserRepository userRepository) {
+        this.store = store;
+        this.userRepository = userRepository;
+        PreferenceStore.Snapshot snapshot = store.getSnapshot();
+        for (Field field : Field.values()) {
+            savedLocally.put(field, field.read(snapshot));
+        }
+    }
+
+    /**
+     * Registra una edición; se guarda cuando pasa {@link #QUIET_PERIOD_MS} sin otra
+     */
+    @MainThread
+    void onFieldChanged(@NonNull Field field, @NonNull Object value) {
+        pending.put(field, value);
+        handler.removeCallbacks(flushLocal);
+        handler.postDelayed(flushLocal, QUIET_PERIOD_MS);
+    }
+
+    /**
+     * Valores leídos de Firestore, que no hace falta volver a enviar
+     */
+    @MainThread
+    void onCloudValuesLoaded(@NonNull Map<Field, Object> values) {
+        for (Map.Entry<Field, Object> entry : values.entrySet()) {
+            savedInCloud.put(entry.getKey(), entry.getKey().toCloud(entry.getValue()));
+        }
+    }
+
+    /**
+     * Guarda ya lo pendiente, sin esperar la pausa ni el intervalo de Firestore.
+     * Se llama al salir de la pantalla.
+     */
+    @MainThread
+    void flush() {
+        handler.removeCallbacks(flushLocal);
+        flushLocal();
+        handler.removeCallbacks(pushCloud);
+        pushCloud();
+    }
+
+    private void flushLocal() {
+        if (pending.isEmpty()) return;
+
+        Map<Field, Object> changed = new EnumMap<>(Field.class);
+        for (Map.Entry<Field, Object> entry : pending.entrySet()) {
+            Field field = entry.getKey();
+            Object value = entry.getValue();
+            if (Objects.equals(savedLocally.get(field), value)) continue;
+            changed.put(field, value);
+            savedLocally.put(field, value);
+
+            Object cloudValue = field.toCloud(value);
+            if (cloudValue != null && !Objects.equals(savedInCloud.get(field), cloudValue)) {
+                cloudPending.put(field, cloudValue);
+            } else {
+                cloudPending.remove(field);
+            }
+        }
+        pending.clear();
+        if (changed.isEmpty()) return;
+
+        // Todos los campos en una sola escritura
+        store.update(editor -> {
+            for (Map.Entry<Field, Object> entry : changed.entrySet()) {
+                entry.getKey().write(editor, entry.getValue());
+            }
+        });
+        scheduleCloudPush();
+    }
+
+    private void scheduleCloudPush() {
+        if (cloudInFlight || cloudPending.isEmpty()) return;
+        long wait = nextCloudPushAt - SystemClock.elapsedRealtime();
+        handler.removeCallbacks(pushCloud);
+        if (wait > 0) {
+            handler.postDelayed(pushCloud, wait);
+        } else {
+            pushCloud();
+        }
+    }
+
+    private void pushCloud() {
+        // Lo que cambie mientras tanto sale en el siguiente envío
+        if (cloudInFlight || cloudPending.isEmpty()) return;
+
+        Map<Field, Object> batch = new EnumMap<>(cloudPending);
+        cloudPending.clear();
+        Map<String, Object> changes = new HashMap<>();
+        for (Map.Entry<Field, Object> entry : batch.entrySet()) {
+            changes.put(entry.getKey().cloudKey, entry.getValue());
+        }
+        cloudInFlight = true;
+        nextCloudPushAt = SystemClock.elapsedRealtime() + MIN_CLOUD_INTERVAL_MS;
+
+        userRepository.updateUserFields(changes).whenComplete((ignored, error) -> handler.post(() -> {
+            cloudInFlight = false;
+            if (error != null) {
+                Log.e(TAG, "Error guardando perfil en Firestore: " + Futures.messageOf(error));
+                // Se reenvía salvo los campos editados después
+                for (Map.Entry<Field, Object> entry : batch.entrySet()) {
+                    cloudPending.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                cloudFailures++;
+                if (cloudFailures <= MAX_CLOUD_RETRIES) {
+                    // 5 s, 10 s, 20 s... desde el fallo
+                    nextCloudPushAt = SystemClock.elapsedRealtime()
+                            + (MIN_CLOUD_INTERVAL_MS << (cloudFailures - 1));
+                    scheduleCloudPush();
+                } else {
+                    // Sin más reintentos; el siguiente cambio vuelve a empezar
+                    cloudFailures = 0;
+                }
+                return;
+            }
+            cloudFailures = 0;
+            savedInCloud.putAll(batch);
+            Log.d(TAG, "Perfil guardado en Firestore: " + changes.keySet());
+            scheduleCloudPush();
+        }));
+    }
+}
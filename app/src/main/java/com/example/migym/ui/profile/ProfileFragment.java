@@ -3,7 +3,6 @@ package com.example.migym.ui.profile;
 import android.Manifest;
 import android.app.Activity;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Build;
@@ -13,6 +12,7 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AdapterView;
 import android.widget.Toast;
 import androidx.activity.result.ActivityResult;
 import androidx.activity.result.ActivityResultCallback;
@@ -24,10 +24,12 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
-import androidx.preference.PreferenceManager;
 import com.example.migym.R;
 import com.example.migym.databinding.FragmentProfileBinding;
 import com.example.migym.repositories.UserRepository;
+import com.example.migym.utils.Futures;
+import com.example.migym.utils.PreferenceKeys;
+import com.example.migym.utils.PreferenceStore;
 import com.google.android.material.textfield.TextInputEditText;
 import com.bumptech.glide.Glide;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
@@ -47,25 +49,20 @@ import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.DataSource;
 import android.text.Editable;
 import android.text.TextWatcher;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class ProfileFragment extends Fragment {
     private static final String TAG = "ProfileFragment";
     private static final int PERMISSION_REQUEST_CODE = 100;
     private static final int PICK_IMAGE_REQUEST = 1;
     private FragmentProfileBinding binding;
-    private SharedPreferences prefs;
+    private PreferenceStore store;
     private Uri selectedImageUri;
     private Uri photoURI;
     private UserRepository userRepository;
     private boolean isUploading = false;
-    private static final String PREF_PROFILE_NAME = "profile_name";
-    private static final String PREF_PROFILE_AGE = "profile_age";
-    private static final String PREF_PROFILE_WEIGHT = "profile_weight";
-    private static final String PREF_PROFILE_HEIGHT = "profile_height";
-    private static final String PREF_PROFILE_HEART_PROBLEMS = "profile_heart_problems";
-    private static final String PREF_PROFILE_HEART_DETAILS = "profile_heart_problems_details";
-    private static final String PREF_PROFILE_IMAGE_PATH = "profile_image_path";
-    private static final String PREF_PROFILE_GENDER = "profile_gender";
+    private ProfileAutosaver autosaver;
 
     private final ActivityResultLauncher<String> selectPicture = registerForActivityResult(
         new ActivityResultContracts.GetContent(),
@@ -126,14 +123,17 @@ public class ProfileFragment extends Fragment {
         
         try {
             userRepository = new UserRepository(requireContext());
-            prefs = PreferenceManager.getDefaultSharedPreferences(requireContext());
+            store = PreferenceStore.getInstance(requireContext());
+            autosaver = new ProfileAutosaver(store, userRepository);
             
             setupClickListeners();
             setupListeners();
             // Sincronizar con Firestore al abrir el perfil
-            userRepository.loadUserProfileFromFirebase(new UserRepository.OnUserLoadedListener() {
+            // Se cancela si la vista se destruye antes de que responda
+            Futures.observe(getViewLifecycleOwner(), userRepository.loadUserProfileFromFirebase(),
+                    new Futures.Callback<com.example.migym.models.User>() {
                 @Override
-                public void onUserLoaded(com.example.migym.models.User user) {
+                public void onSuccess(com.example.migym.models.User user) {
                     // Actualizar la UI con los datos de Firestore
                     binding.nameInput.setText(user.getName() != null ? user.getName() : "");
                     binding.ageInput.setText(user.getAge() > 0 ? String.valueOf(user.getAge()) : "");
@@ -142,6 +142,8 @@ public class ProfileFragment extends Fragment {
                     binding.genderSpinner.setSelection(user.getGender());
                     binding.heartProblemsSwitch.setChecked(user.hasHeartProblems());
                     binding.heartProblemsDetailsInput.setText(user.getHeartProblemsDetails() != null ? user.getHeartProblemsDetails() : "");
+                    // Lo que viene de Firestore se guarda en local pero no se reenvía
+                    autosaver.onCloudValuesLoaded(readForm());
                     if (user.getPhotoUrl() != null && !user.getPhotoUrl().isEmpty()) {
                         Glide.with(ProfileFragment.this)
                             .load(user.getPhotoUrl())
@@ -152,8 +154,8 @@ public class ProfileFragment extends Fragment {
                     }
                 }
                 @Override
-                public void onError(String error) {
-                    Log.e(TAG, "Error cargando perfil de Firestore: " + error);
+                public void onError(@NonNull Throwable error) {
+                    Log.e(TAG, "Error cargando perfil de Firestore: " + Futures.messageOf(error));
                 }
             });
             loadProfileData();
@@ -177,63 +179,29 @@ public class ProfileFragment extends Fragment {
         
         binding.heartProblemsSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
             binding.heartProblemsDetailsLayout.setVisibility(isChecked ? View.VISIBLE : View.GONE);
-            saveProfileData();
+            autosaver.onFieldChanged(ProfileAutosaver.Field.HEART_PROBLEMS, isChecked);
         });
 
-        // Configurar listeners para el guardado automático
-        binding.nameInput.addTextChangedListener(new TextWatcher() {
-            @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
-
-            @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) {}
-
-            @Override
-            public void afterTextChanged(Editable s) {
-                saveProfileData();
-            }
-        });
-
-        binding.ageInput.addTextChangedListener(new TextWatcher() {
-            @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
-
-            @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) {}
-
+        binding.genderSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
-            public void afterTextChanged(Editable s) {
-                saveProfileData();
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                autosaver.onFieldChanged(ProfileAutosaver.Field.GENDER, position);
             }
-        });
-
-        binding.weightInput.addTextChangedListener(new TextWatcher() {
-            @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
-
-            @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) {}
 
             @Override
-            public void afterTextChanged(Editable s) {
-                saveProfileData();
-            }
+            public void onNothingSelected(AdapterView<?> parent) {}
         });
 
-        binding.heightInput.addTextChangedListener(new TextWatcher() {
-            @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
-
-            @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) {}
-
-            @Override
-            public void afterTextChanged(Editable s) {
-                saveProfileData();
-            }
-        });
+        // Configurar listeners para el guardado automático
+        watch(binding.nameInput, ProfileAutosaver.Field.NAME);
+        watch(binding.ageInput, ProfileAutosaver.Field.AGE);
+        watch(binding.weightInput, ProfileAutosaver.Field.WEIGHT);
+        watch(binding.heightInput, ProfileAutosaver.Field.HEIGHT);
+        watch(binding.heartProblemsDetailsInput, ProfileAutosaver.Field.HEART_PROBLEMS_DETAILS);
+    }
 
-        binding.heartProblemsDetailsInput.addTextChangedListener(new TextWatcher() {
+    private void watch(TextInputEditText input, ProfileAutosaver.Field field) {
+        input.addTextChangedListener(new TextWatcher() {
             @Override
             public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
 
@@ -242,7 +210,7 @@ public class ProfileFragment extends Fragment {
 
             @Override
             public void afterTextChanged(Editable s) {
-                saveProfileData();
+                autosaver.onFieldChanged(field, s.toString().trim());
             }
         });
     }
@@ -417,9 +385,7 @@ public class ProfileFragment extends Fragment {
                     // binding.changePhotoButton.setEnabled(true); // Eliminar referencia
 
                     // Guardar la URL de la imagen en las preferencias
-                    SharedPreferences.Editor editor = prefs.edit();
-                    editor.putString(PREF_PROFILE_IMAGE_PATH, imageUrl);
-                    editor.apply();
+                    store.update(editor -> editor.set(PreferenceKeys.PROFILE_IMAGE_PATH, imageUrl));
 
                     Log.d(TAG, "Image URL saved to preferences: " + imageUrl);
 
@@ -450,23 +416,24 @@ public class ProfileFragment extends Fragment {
     }
 
     private void loadProfileData() {
-        if (binding == null || prefs == null) return;
+        if (binding == null || store == null) return;
 
         try {
-            binding.nameInput.setText(prefs.getString(PREF_PROFILE_NAME, ""));
-            binding.ageInput.setText(prefs.getString(PREF_PROFILE_AGE, ""));
-            binding.weightInput.setText(prefs.getString(PREF_PROFILE_WEIGHT, ""));
-            binding.heightInput.setText(prefs.getString(PREF_PROFILE_HEIGHT, ""));
+            PreferenceStore.Snapshot prefs = store.getSnapshot();
+            binding.nameInput.setText(prefs.get(PreferenceKeys.PROFILE_NAME));
+            binding.ageInput.setText(prefs.get(PreferenceKeys.PROFILE_AGE));
+            binding.weightInput.setText(prefs.get(PreferenceKeys.PROFILE_WEIGHT));
+            binding.heightInput.setText(prefs.get(PreferenceKeys.PROFILE_HEIGHT));
             // Cargar género
-            int genderIndex = prefs.getInt(PREF_PROFILE_GENDER, 0);
+            int genderIndex = prefs.get(PreferenceKeys.PROFILE_GENDER);
             binding.genderSpinner.setSelection(genderIndex);
             
-            boolean hasHeartProblems = prefs.getBoolean(PREF_PROFILE_HEART_PROBLEMS, false);
+            boolean hasHeartProblems = prefs.get(PreferenceKeys.PROFILE_HEART_PROBLEMS);
             binding.heartProblemsSwitch.setChecked(hasHeartProblems);
             binding.heartProblemsDetailsLayout.setVisibility(hasHeartProblems ? View.VISIBLE : View.GONE);
-            binding.heartProblemsDetailsInput.setText(prefs.getString(PREF_PROFILE_HEART_DETAILS, ""));
+            binding.heartProblemsDetailsInput.setText(prefs.get(PreferenceKeys.PROFILE_HEART_DETAILS));
             
-            String imagePath = prefs.getString(PREF_PROFILE_IMAGE_PATH, null);
+            String imagePath = prefs.get(PreferenceKeys.PROFILE_IMAGE_PATH);
             Log.d(TAG, "Loading profile image from path: " + imagePath);
             if (imagePath != null && !imagePath.isEmpty()) {
                 loadProfileImageFromUrl(imagePath);
@@ -479,91 +446,17 @@ public class ProfileFragment extends Fragment {
         }
     }
 
-    private void saveProfileData() {
-        // Obtener los valores de los campos
-        String name = getTextFromInput(binding.nameInput);
-        String ageStr = getTextFromInput(binding.ageInput);
-        String weightStr = getTextFromInput(binding.weightInput);
-        String heightStr = getTextFromInput(binding.heightInput);
-        int genderIndex = binding.genderSpinner.getSelectedItemPosition();
-        boolean hasHeartProblems = binding.heartProblemsSwitch.isChecked();
-        String heartProblemsDetails = getTextFromInput(binding.heartProblemsDetailsInput);
-
-        // Guardar los datos en SharedPreferences
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putString(PREF_PROFILE_NAME, name);
-        editor.putString(PREF_PROFILE_AGE, ageStr);
-        editor.putString(PREF_PROFILE_WEIGHT, weightStr);
-        editor.putString(PREF_PROFILE_HEIGHT, heightStr);
-        editor.putInt(PREF_PROFILE_GENDER, genderIndex);
-        editor.putBoolean(PREF_PROFILE_HEART_PROBLEMS, hasHeartProblems);
-        editor.putString(PREF_PROFILE_HEART_DETAILS, heartProblemsDetails);
-        editor.apply();
-
-        // Guardar los datos en Firestore
-        com.example.migym.models.User user = new com.example.migym.models.User();
-        user.setName(name);
-        try { user.setAge(Integer.parseInt(ageStr)); } catch (Exception ignored) {}
-        try { user.setWeight(Double.parseDouble(weightStr)); } catch (Exception ignored) {}
-        try { user.setHeight(Double.parseDouble(heightStr)); } catch (Exception ignored) {}
-        user.setGender(genderIndex);
-        user.setHeartProblems(hasHeartProblems);
-        user.setHeartProblemsDetails(heartProblemsDetails);
-        // Si tienes email o photoUrl, añádelos aquí
-        userRepository.saveUserProfileToFirebase(user, new UserRepository.OnProfileUpdateListener() {
-            @Override
-            public void onSuccess(String imageUrl) {
-                Log.d(TAG, "Perfil guardado en Firestore");
-            }
-            @Override
-            public void onError(String error) {
-                Log.e(TAG, "Error guardando perfil en Firestore: " + error);
-            }
-            @Override
-            public void onProgress(double progress) {}
-        });
-
-        // Si hay una nueva imagen seleccionada, subirla
-        if (selectedImageUri != null) {
-            isUploading = true;
-            binding.progressBar.setVisibility(View.VISIBLE);
-            // binding.changePhotoButton.setEnabled(false); // Eliminar referencia
-
-            userRepository.uploadProfileImage(selectedImageUri, new UserRepository.OnProfileUpdateListener() {
-                @Override
-                public void onSuccess(String imageUrl) {
-                    requireActivity().runOnUiThread(() -> {
-                        // Guardar la URL de la imagen en las preferencias
-                        prefs.edit().putString(PREF_PROFILE_IMAGE_PATH, imageUrl).apply();
-                        
-                        // Cargar la imagen desde la URL
-                        loadProfileImageFromUrl(imageUrl);
-                        
-                        // Restaurar la UI
-                        binding.progressBar.setVisibility(View.GONE);
-                        // binding.changePhotoButton.setEnabled(true); // Eliminar referencia
-                        isUploading = false;
-                    });
-                }
-
-                @Override
-                public void onError(String error) {
-                    requireActivity().runOnUiThread(() -> {
-                        binding.progressBar.setVisibility(View.GONE);
-                        // binding.changePhotoButton.setEnabled(true); // Eliminar referencia
-                        isUploading = false;
-                        Toast.makeText(requireContext(), "Error al actualizar la imagen: " + error, Toast.LENGTH_SHORT).show();
-                    });
-                }
-
-                @Override
-                public void onProgress(double progress) {
-                    requireActivity().runOnUiThread(() -> {
-                        binding.progressBar.setProgress((int) (progress * 100));
-                    });
-                }
-            });
-        }
+    // Valores actuales del formulario, con el mismo formato que las preferencias
+    private Map<ProfileAutosaver.Field, Object> readForm() {
+        Map<ProfileAutosaver.Field, Object> values = new EnumMap<>(ProfileAutosaver.Field.class);
+        values.put(ProfileAutosaver.Field.NAME, getTextFromInput(binding.nameInput));
+        values.put(ProfileAutosaver.Field.AGE, getTextFromInput(binding.ageInput));
+        values.put(ProfileAutosaver.Field.WEIGHT, getTextFromInput(binding.weightInput));
+        values.put(ProfileAutosaver.Field.HEIGHT, getTextFromInput(binding.heightInput));
+        values.put(ProfileAutosaver.Field.GENDER, binding.genderSpinner.getSelectedItemPosition());
+        values.put(ProfileAutosaver.Field.HEART_PROBLEMS, binding.heartProblemsSwitch.isChecked());
+        values.put(ProfileAutosaver.Field.HEART_PROBLEMS_DETAILS, getTextFromInput(binding.heartProblemsDetailsInput));
+        return values;
     }
 
     private String getTextFromInput(TextInputEditText input) {
@@ -617,6 +510,15 @@ public class ProfileFragment extends Fragment {
         }
     }
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        // No esperar a la pausa de escritura si el usuario sale de la pantalla
+        if (autosaver != null) {
+            autosaver.flush();
+        }
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
@@ -656,7 +558,7 @@ public class ProfileFragment extends Fragment {
                 // binding.changePhotoButton.setEnabled(true); // Eliminar referencia
 
                 // Guardar la URL de la imagen en las preferencias
-                prefs.edit().putString(PREF_PROFILE_IMAGE_PATH, imageUrl).apply();
+                store.update(editor -> editor.set(PreferenceKeys.PROFILE_IMAGE_PATH, imageUrl));
 
                 // Cargar la imagen desde la URL del servidor
                 Glide.with(ProfileFragment.this)
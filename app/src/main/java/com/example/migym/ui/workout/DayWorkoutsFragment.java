@@ -12,7 +12,7 @@ import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.migym.R;
 import com.example.migym.adapters.WorkoutAdapter;
-import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutSummary;
 import com.example.migym.databinding.FragmentDayWorkoutsBinding;
 import com.example.migym.viewmodels.WorkoutViewModel;
 import com.google.android.material.snackbar.Snackbar;
@@ -26,9 +26,12 @@ public class DayWorkoutsFragment extends Fragment implements WorkoutAdapter.OnWo
     private int day;
 
     public static DayWorkoutsFragment newInstance(String dayString) {
+        return newInstance(Integer.parseInt(dayString));
+    }
+
+    public static DayWorkoutsFragment newInstance(int day) {
         DayWorkoutsFragment fragment = new DayWorkoutsFragment();
         Bundle args = new Bundle();
-        int day = Integer.parseInt(dayString);
         args.putInt(ARG_DAY, day);
         fragment.setArguments(args);
         return fragment;
@@ -64,7 +67,7 @@ public class DayWorkoutsFragment extends Fragment implements WorkoutAdapter.OnWo
     }
 
     private void observeWorkouts() {
-        workoutViewModel.getWorkoutsByDay(day).observe(getViewLifecycleOwner(), workouts -> {
+        workoutViewModel.getWorkoutRowsByDay(day).observe(getViewLifecycleOwner(), workouts -> {
             if (workouts != null && !workouts.isEmpty()) {
                 workoutAdapter.submitList(workouts);
                 binding.emptyView.setVisibility(View.GONE);
@@ -76,7 +79,7 @@ public class DayWorkoutsFragment extends Fragment implements WorkoutAdapter.OnWo
     }
 
     @Override
-    public void onWorkoutClick(Workout workout) {
+    public void onWorkoutClick(WorkoutSummary workout) {
         Bundle args = new Bundle();
         args.putString("workoutId", workout.getId());
         Navigation.findNavController(requireView())
@@ -84,8 +87,8 @@ public class DayWorkoutsFragment extends Fragment implements WorkoutAdapter.OnWo
     }
 
     @Override
-    public void onDeleteClick(Workout workout) {
-        workoutViewModel.deleteWorkout(workout);
+    public void onDeleteClick(WorkoutSummary workout) {
+        workoutViewModel.deleteWorkoutById(workout.getId());
         Snackbar.make(requireView(), R.string.workout_deleted, Snackbar.LENGTH_LONG).show();
     }
 
@@ -103,7 +103,7 @@ public class WorkoutDetailFragment extends Fragment {
             binding.titleEditText.setText(workout.getTitle());
             binding.descriptionEditText.setText(workout.getDescription());
             binding.locationEditText.setText(workout.getLocation());
-            binding.daySpinner.setSelection(workout.getDayOfWeek() - 1);
+            binding.daySpinner.setSelection(workout.getDayOfWeek());
             binding.typeSpinner.setSelection(workout.getTypeAsInt());
             binding.timeEditText.setText(workout.getTime());
             
@@ -168,7 +168,7 @@ public class WorkoutDetailFragment extends Fragment {
             int dayPosition = binding.daySpinner.getSelectedItemPosition();
             int typePosition = binding.typeSpinner.getSelectedItemPosition();
             
-            newWorkout.setDayOfWeek(dayPosition + 1);
+            newWorkout.setDayOfWeek(dayPosition);
             newWorkout.setTypeFromInt(typePosition);
             newWorkout.setDuration(30); // Duración predeterminada
             newWorkout.setCompleted(0);
@@ -234,7 +234,7 @@ public class WorkoutDetailFragment extends Fragment {
         workout.setDescription(binding.descriptionEditText.getText().toString());
         workout.setLocation(binding.locationEditText.getText().toString());
         workout.setTime(binding.timeEditText.getText().toString());
-        workout.setDayOfWeek(binding.daySpinner.getSelectedItemPosition() + 1);
+        workout.setDayOfWeek(binding.daySpinner.getSelectedItemPosition());
         workout.setTypeFromInt(binding.typeSpinner.getSelectedItemPosition());
 
         workoutViewModel.updateWorkout(workout);
@@ -1,27 +1,41 @@
 package com.example.migym.ui.workout;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.widget.SearchView;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.migym.R;
 import com.example.migym.adapters.WorkoutAdapter;
+import com.example.migym.adapters.WorkoutPagingAdapter;
 import com.example.migym.databinding.FragmentWorkoutListBinding;
 import com.example.migym.dialogs.AddWorkoutDialog;
 import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutSummary;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 
 import java.util.List;
+import kotlin.Unit;
 
 public class WorkoutListFragment extends Fragment implements WorkoutAdapter.OnWorkoutClickListener {
     private FragmentWorkoutListBinding binding;
     private WorkoutViewModel viewModel;
-    private WorkoutAdapter adapter;
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    private WorkoutPagingAdapter adapter;
+    private WorkoutAdapter searchAdapter;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+    private boolean searching;
 
     @Nullable
     @Override
@@ -36,11 +50,13 @@ public class WorkoutListFragment extends Fragment implements WorkoutAdapter.OnWo
         viewModel = new ViewModelProvider(requireActivity()).get(WorkoutViewModel.class);
         setupRecyclerView();
         setupFab();
+        setupSearch();
         observeWorkouts();
     }
 
     private void setupRecyclerView() {
-        adapter = new WorkoutAdapter(this);
+        adapter = new WorkoutPagingAdapter(this);
+        searchAdapter = new WorkoutAdapter(this);
         binding.workoutRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.workoutRecyclerView.setAdapter(adapter);
     }
@@ -49,11 +65,65 @@ public class WorkoutListFragment extends Fragment implements WorkoutAdapter.OnWo
         binding.addWorkoutFab.setOnClickListener(v -> showAddWorkoutDialog());
     }
 
+    private void setupSearch() {
+        binding.workoutSearchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                runSearch(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                // Only query once typing pauses
+                if (pendingSearch != null) {
+                    searchHandler.removeCallbacks(pendingSearch);
+                }
+                pendingSearch = () -> runSearch(newText);
+                searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+                return true;
+            }
+        });
+    }
+
+    private void runSearch(String text) {
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        boolean hasQuery = text != null && !text.trim().isEmpty();
+        if (hasQuery != searching) {
+            searching = hasQuery;
+            binding.workoutRecyclerView.setAdapter(searching ? searchAdapter : adapter);
+            binding.emptyView.setText(searching ? R.string.no_search_results : R.string.no_workouts);
+        }
+        viewModel.setSearchQuery(text);
+        if (!searching) {
+            updateEmptyView(adapter.getItemCount() == 0);
+        }
+    }
+
+    private void updateEmptyView(boolean isEmpty) {
+        binding.emptyView.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
+        binding.workoutRecyclerView.setVisibility(isEmpty ? View.GONE : View.VISIBLE);
+    }
+
     private void observeWorkouts() {
-        viewModel.getAllWorkouts().observe(getViewLifecycleOwner(), workouts -> {
-            adapter.submitList(workouts);
-            binding.emptyView.setVisibility(workouts.isEmpty() ? View.VISIBLE : View.GONE);
-            binding.workoutRecyclerView.setVisibility(workouts.isEmpty() ? View.GONE : View.VISIBLE);
+        viewModel.getPagedWorkouts().observe(getViewLifecycleOwner(), pagingData ->
+            adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+
+        adapter.addLoadStateListener(loadStates -> {
+            if (binding != null && !searching && loadStates.getRefresh() instanceof LoadState.NotLoading) {
+                updateEmptyView(adapter.getItemCount() == 0);
+            }
+            return Unit.INSTANCE;
+        });
+
+        viewModel.getSearchResults().observe(getViewLifecycleOwner(), results -> {
+            searchAdapter.submitList(results);
+            if (searching) {
+                updateEmptyView(results == null || results.isEmpty());
+            }
         });
     }
 
@@ -100,29 +170,28 @@ public class WorkoutListFragment extends Fragment implements WorkoutAdapter.OnWo
             .setMessage(message)
             .setPositiveButton(R.string.force_add, (dialog, which) -> {
                 // Forzar la adición del workout
-                viewModel.addWorkout(newWorkout, new WorkoutViewModel.OnWorkoutAddListener() {
-                    @Override
-                    public void onWorkoutAdded() {
-                        // La lista se actualizará automáticamente
-                    }
-
-                    @Override
-                    public void onError(String error) {
-                        // Mostrar error al usuario
-                    }
-
-                    @Override
-                    public void onConflict(List<Workout> conflicts) {
-                        // No debería ocurrir ya que estamos forzando la adición
-                    }
-                });
+                viewModel.forceAddWorkout(newWorkout);
             })
             .setNegativeButton(R.string.cancel, null)
             .show();
     }
 
     @Override
-    public void onWorkoutClick(Workout workout) {
+    public void onWorkoutClick(WorkoutSummary summary) {
+        // The list only holds summaries, so load the full workout before editing it
+        LiveData<Workout> workoutLiveData = viewModel.getWorkoutById(summary.getId());
+        workoutLiveData.observe(getViewLifecycleOwner(), new Observer<Workout>() {
+            @Override
+            public void onChanged(Workout workout) {
+                workoutLiveData.removeObserver(this);
+                if (workout != null && binding != null) {
+                    showEditWorkoutDialog(workout);
+                }
+            }
+        });
+    }
+
+    private void showEditWorkoutDialog(Workout workout) {
         AddWorkoutDialog dialog = AddWorkoutDialog.newInstance(workout);
         dialog.setListener(new AddWorkoutDialog.OnWorkoutListener() {
             @Override
@@ -138,12 +207,12 @@ public class WorkoutListFragment extends Fragment implements WorkoutAdapter.OnWo
     }
 
     @Override
-    public void onDeleteClick(Workout workout) {
+    public void onDeleteClick(WorkoutSummary workout) {
         new MaterialAlertDialogBuilder(requireContext())
             .setTitle(R.string.delete_workout)
             .setMessage(R.string.delete_workout_message)
             .setPositiveButton(R.string.delete, (dialog, which) -> {
-                viewModel.deleteWorkout(workout);
+                viewModel.deleteWorkoutById(workout.getId());
             })
             .setNegativeButton(R.string.cancel, null)
             .show();
@@ -152,6 +221,9 @@ public class WorkoutListFragment extends Fragment implements WorkoutAdapter.OnWo
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        searchHandler.removeCallbacksAndMessages(null);
+        pendingSearch = null;
+        searching = false;
         binding = null;
     }
 } 
\ No newline at end of file
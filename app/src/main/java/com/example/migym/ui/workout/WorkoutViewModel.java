@@ -4,22 +4,28 @@ import android.app.Application;
 import android.util.Log;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
 import androidx.annotation.NonNull;
+import com.example.migym.adapters.WorkoutRow;
+import com.example.migym.adapters.WorkoutRowFactory;
 import com.example.migym.data.WorkoutRepository;
+import com.example.migym.data.WorkoutWriteResult;
 import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutSummary;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import android.os.Handler;
-import android.os.Looper;
 import androidx.lifecycle.MutableLiveData;
 import java.util.ArrayList;
 
 public class WorkoutViewModel extends AndroidViewModel {
     private static final String TAG = "WorkoutViewModel";
     private final WorkoutRepository repository;
-    private final ExecutorService executorService;
-    private final Handler mainHandler;
+    private final WorkoutRowFactory rowFactory;
+    private LiveData<PagingData<WorkoutRow>> pagedWorkouts;
+    private final MutableLiveData<String> searchQuery = new MutableLiveData<>();
+    private final LiveData<List<WorkoutRow>> searchResults;
 
     public interface OnWorkoutAddListener {
         void onWorkoutAdded();
@@ -30,14 +36,45 @@ public class WorkoutViewModel extends AndroidViewModel {
     public WorkoutViewModel(@NonNull Application application) {
         super(application);
         repository = new WorkoutRepository(application);
-        executorService = Executors.newSingleThreadExecutor();
-        mainHandler = new Handler(Looper.getMainLooper());
+        rowFactory = new WorkoutRowFactory(application);
+        // switchMap drops the previous query's source, so results of a stale search never arrive
+        searchResults = Transformations.switchMap(searchQuery, query ->
+                rowFactory.mapAsync(repository.searchWorkouts(query), WorkoutRowFactory.getExecutor()));
     }
 
     public LiveData<List<Workout>> getAllWorkouts() {
         return repository.getAllWorkouts();
     }
 
+    public LiveData<PagingData<WorkoutRow>> getPagedWorkouts() {
+        if (pagedWorkouts == null) {
+            // Rows are formatted as each page loads, off the main thread
+            LiveData<PagingData<WorkoutRow>> rows = Transformations.map(repository.getPagedWorkouts(), data ->
+                    PagingDataTransforms.map(data, WorkoutRowFactory.getExecutor(), rowFactory::create));
+            // Cached in the view model so configuration changes reuse the loaded pages
+            pagedWorkouts = PagingLiveData.cachedIn(rows, this);
+        }
+        return pagedWorkouts;
+    }
+
+    public LiveData<List<WorkoutRow>> getSearchResults() {
+        return searchResults;
+    }
+
+    /**
+     * Runs a new search unless the text is the same as the current one
+     */
+    public void setSearchQuery(String text) {
+        String query = text == null ? "" : text.trim();
+        if (!query.equals(searchQuery.getValue())) {
+            searchQuery.setValue(query);
+        }
+    }
+
+    public LiveData<List<WorkoutSummary>> getWorkoutsWithTags(long muscleMask, long equipmentMask) {
+        return repository.getWorkoutsWithTags(muscleMask, equipmentMask);
+    }
+
     public LiveData<List<Workout>> getWorkoutsByDay(String day) {
         return repository.getWorkoutsByDay(Integer.parseInt(day));
     }
@@ -50,6 +87,10 @@ public class WorkoutViewModel extends AndroidViewModel {
         repository.delete(workout);
     }
 
+    public void deleteWorkoutById(String workoutId) {
+        repository.deleteById(workoutId);
+    }
+
     public void addWorkout(Workout workout, OnWorkoutAddListener listener) {
         if (workout == null) {
             if (listener != null) {
@@ -58,55 +99,27 @@ public class WorkoutViewModel extends AndroidViewModel {
             return;
         }
 
-        try {
-            executorService.execute(() -> {
-                try {
-                    // Verificar conflictos de horario
-                    List<Workout> conflicts = repository.getWorkoutsAtTimeSync(workout.getDayOfWeek(), workout.getTime());
-                    if (!conflicts.isEmpty()) {
-                        mainHandler.post(() -> {
-                            if (listener != null) {
-                                listener.onConflict(conflicts);
-                            }
-                        });
-                        return;
-                    }
-
-                    // Añadir el workout
-                    repository.insertWorkout(workout, new WorkoutRepository.OnWorkoutOperationListener() {
-                        @Override
-                        public void onSuccess(Workout workout) {
-                            mainHandler.post(() -> {
-                                if (listener != null) {
-                                    listener.onWorkoutAdded();
-                                }
-                            });
-                        }
-
-                        @Override
-                        public void onError(String error) {
-                            mainHandler.post(() -> {
-                                if (listener != null) {
-                                    listener.onError("Error al añadir el entrenamiento: " + error);
-                                }
-                            });
-                        }
-                    });
-                } catch (Exception e) {
-                    Log.e(TAG, "Error adding workout", e);
-                    mainHandler.post(() -> {
-                        if (listener != null) {
-                            listener.onError("Error al añadir el entrenamiento: " + e.getMessage());
-                        }
-                    });
+        repository.saveWorkout(workout, false, new WorkoutRepository.OnWorkoutSaveListener() {
+            @Override
+            public void onSaved(WorkoutWriteResult result) {
+                if (listener == null) {
+                    return;
+                }
+                if (result.isSaved()) {
+                    listener.onWorkoutAdded();
+                } else {
+                    listener.onConflict(result.getConflicts());
                 }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error in addWorkout", e);
-            if (listener != null) {
-                listener.onError("Error al procesar la solicitud: " + e.getMessage());
             }
-        }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error adding workout: " + error);
+                if (listener != null) {
+                    listener.onError("Error al añadir el entrenamiento: " + error);
+                }
+            }
+        });
     }
 
     public void forceAddWorkout(Workout workout) {
@@ -115,9 +128,9 @@ public class WorkoutViewModel extends AndroidViewModel {
             return;
         }
 
-        repository.insertWorkout(workout, new WorkoutRepository.OnWorkoutOperationListener() {
+        repository.saveWorkout(workout, true, new WorkoutRepository.OnWorkoutSaveListener() {
             @Override
-            public void onSuccess(Workout workout) {
+            public void onSaved(WorkoutWriteResult result) {
                 Log.d(TAG, "Workout forced added successfully");
             }
 
@@ -129,13 +142,19 @@ public class WorkoutViewModel extends AndroidViewModel {
     }
 
     public void updateWorkout(Workout workout) {
-        repository.update(workout);
-    }
+        repository.saveWorkout(workout, false, new WorkoutRepository.OnWorkoutSaveListener() {
+            @Override
+            public void onSaved(WorkoutWriteResult result) {
+                if (!result.isSaved()) {
+                    Log.w(TAG, "Time conflict when updating workout");
+                }
+            }
 
-    @Override
-    protected void onCleared() {
-        super.onCleared();
-        executorService.shutdown();
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error updating workout: " + error);
+            }
+        });
     }
 
     public LiveData<List<Workout>> getWorkouts() {
@@ -0,0 +1,212 @@
+package com.example.migym.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The app's background threads, shared by every repository, view model and manager.
+ * <p>
+ * Each pool has named threads and a bounded queue. When a queue is full the task moves
+ * to a single shared overflow thread, which has a bounded queue of its own; when that is
+ * full too, execute throws {@link RejectedExecutionException}. A task never runs on the
+ * submitting thread, which is often the main thread. The disk-write pool is the exception:
+ * its queue is unbounded and it never overflows, so writes always run one at a time and
+ * in the order they were submitted. Every task is recorded in {@link #getMetrics()} under
+ * its tag, or under the pool name when submitted without one.
+ */
+public final class AppExecutors {
+    private static final int DISK_THREADS = 4;
+    private static final int DISK_QUEUE = 256;
+    private static final int NETWORK_THREADS = 3;
+    private static final int NETWORK_QUEUE = 64;
+    private static final int COMPUTE_QUEUE = 128;
+    private static final int OVERFLOW_QUEUE = 256;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile AppExecutors instance;
+
+    private final TaskMetrics metrics = new TaskMetrics();
+    private final ThreadPoolExecutor overflow;
+    private final TaggedExecutor diskIO;
+    private final TaggedExecutor diskWrite;
+    private final TaggedExecutor networkIO;
+    private final TaggedExecutor compute;
+    private final TaggedExecutor mainThread;
+
+    private AppExecutors() {
+        int computeThreads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        overflow = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(OVERFLOW_QUEUE),
+                new NamedThreadFactory("overflow", Process.THREAD_PRIORITY_BACKGROUND),
+                new ThreadPoolExecutor.AbortPolicy());
+        overflow.allowCoreThreadTimeOut(true);
+        diskIO = newPool("disk-io", DISK_THREADS, DISK_QUEUE, Process.THREAD_PRIORITY_BACKGROUND);
+        diskWrite = newSerialPool("disk-write", Process.THREAD_PRIORITY_BACKGROUND);
+        networkIO = newPool("network-io", NETWORK_THREADS, NETWORK_QUEUE, Process.THREAD_PRIORITY_BACKGROUND);
+        compute = newPool("compute", computeThreads, COMPUTE_QUEUE,
+                Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = new TaggedExecutor("main", mainHandler::post, metrics);
+    }
+
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Database reads and file access
+     */
+    @NonNull
+    public TaggedExecutor diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Database writes, one at a time
+     */
+    @NonNull
+    public TaggedExecutor diskWrite() {
+        return diskWrite;
+    }
+
+    /**
+     * Uploads and other blocking network calls
+     */
+    @NonNull
+    public TaggedExecutor networkIO() {
+        return networkIO;
+    }
+
+    /**
+     * CPU-bound work such as list diffs and formatting; must not block on IO
+     */
+    @NonNull
+    public TaggedExecutor compute() {
+        return compute;
+    }
+
+    @NonNull
+    public TaggedExecutor mainThread() {
+        return mainThread;
+    }
+
+    @NonNull
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    private TaggedExecutor newPool(String name, int threads, int queueSize, int priority) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                new NamedThreadFactory(name, priority), new HandOffToOverflow(overflow, metrics));
+        pool.allowCoreThreadTimeOut(true);
+        return new TaggedExecutor(name, pool, metrics);
+    }
+
+    // Writes have their own thread so they never wait behind a burst of reads. Callers rely
+    // on one write finishing before the next starts, so nothing is ever handed elsewhere.
+    private TaggedExecutor newSerialPool(String name, int priority) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(name, priority), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return new TaggedExecutor(name, pool, metrics);
+    }
+
+    /**
+     * Executor that records each task's queue wait and run time under a tag
+     */
+    public static final class TaggedExecutor implements Executor {
+        private final String name;
+        private final Executor delegate;
+        private final TaskMetrics metrics;
+
+        TaggedExecutor(String name, Executor delegate, TaskMetrics metrics) {
+            this.name = name;
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            execute(name, command);
+        }
+
+        /**
+         * @param tag Name the task is reported under, e.g. "workout-save"
+         */
+        public void execute(@NonNull String tag, @NonNull Runnable command) {
+            // Counted first so a task that starts at once never leaves pending negative
+            metrics.onQueued(tag);
+            try {
+                delegate.execute(new TaggedTask(tag, command, metrics));
+            } catch (RejectedExecutionException e) {
+                metrics.onDropped(tag);
+                throw e;
+            }
+        }
+    }
+
+    private static final class TaggedTask implements Runnable {
+        final String tag;
+        private final Runnable command;
+        private final TaskMetrics metrics;
+        private final long queuedAt = SystemClock.elapsedRealtimeNanos();
+
+        TaggedTask(String tag, Runnable command, TaskMetrics metrics) {
+            this.tag = tag;
+            this.command = command;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = SystemClock.elapsedRealtimeNanos();
+            metrics.onStarted(tag, startedAt - queuedAt);
+            try {
+                command.run();
+            } finally {
+                metrics.onFinished(tag, SystemClock.elapsedRealtimeNanos() - startedAt);
+            }
+        }
+    }
+
+    // Full queue: hand the task to the overflow thread, or fail it when that is full too
+    private static final class HandOffToOverflow implements RejectedExecutionHandler {
+        private final ThreadPoolExecutor overflow;
+        private final TaskMetrics metrics;
+
+        HandOffToOverflow(ThreadPoolExecutor overflow, TaskMetrics metrics) {
+            this.overflow = overflow;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor pool) {
+            if (task instanceof TaggedTask) {
+                metrics.onRejected(((TaggedTask) task).tag);
+            }
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("Executor shut down");
+            }
+            overflow.execute(task);
+        }
+    }
+}
@@ -3,8 +3,6 @@ package com.example.migym.utils;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
-import android.os.Handler;
-import android.os.Looper;
 import android.provider.MediaStore;
 import androidx.loader.content.CursorLoader;
 import com.cloudinary.Cloudinary;
@@ -35,8 +33,9 @@ public class CloudinaryManager {
                 return;
             }
 
-            // Ejecutar la subida en un hilo secundario
-            new Thread(() -> {
+            // Ejecutar la subida en el pool de red compartido
+            AppExecutors executors = AppExecutors.getInstance();
+            executors.networkIO().execute("cloudinary-upload", () -> {
                 try {
                     File file = new File(filePath);
                     Map<String, Object> options = new HashMap<>();
@@ -47,16 +46,16 @@ public class CloudinaryManager {
                     String imageUrl = (String) uploadResult.get("secure_url");
                     
                     // Volver al hilo principal para la callback
-                    new Handler(Looper.getMainLooper()).post(() -> {
+                    executors.mainThread().execute(() -> {
                         callback.onSuccess(imageUrl);
                     });
 
                 } catch (Exception e) {
-                    new Handler(Looper.getMainLooper()).post(() -> {
+                    executors.mainThread().execute(() -> {
                         callback.onError(e.getMessage());
                     });
                 }
-            }).start();
+            });
 
         } catch (Exception e) {
             callback.onError(e.getMessage());
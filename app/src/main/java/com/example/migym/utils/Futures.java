@@ -0,0 +1,203 @@
+package com.example.migym.utils;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import com.google.android.gms.tasks.Task;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Helpers for the {@link CompletableFuture} based repository API.
+ * <p>
+ * Futures complete on the thread that did the work, so chained steps such as
+ * thenCombine run there too; only the final result is posted to the
+ * main thread, by {@link #observe}.
+ */
+public final class Futures {
+
+    /**
+     * Result of a future, delivered on the main thread
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+        void onError(@NonNull Throwable error);
+    }
+
+    private Futures() {
+    }
+
+    /**
+     * Runs the task on the executor. A future cancelled while still queued never runs,
+     * and one the executor has no room for fails with a RejectedExecutionException.
+     */
+    @NonNull
+    public static <T> CompletableFuture<T> supplyAsync(@NonNull Executor executor, @NonNull Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(future, task));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Same as {@link #supplyAsync(Executor, Callable)}, reported under a tag in {@link TaskMetrics}
+     */
+    @NonNull
+    public static <T> CompletableFuture<T> supplyAsync(@NonNull AppExecutors.TaggedExecutor executor,
+                                                       @NonNull String tag, @NonNull Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(tag, () -> run(future, task));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static <T> void run(CompletableFuture<T> future, Callable<T> task) {
+        if (future.isDone()) {
+            return;
+        }
+        try {
+            future.complete(task.call());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Adapts a Firebase task. Completion is handled on the thread finishing the task
+     * instead of hopping to the main thread, which is Firebase's default.
+     */
+    @NonNull
+    public static <T> CompletableFuture<T> fromTask(@NonNull Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnCompleteListener(Runnable::run, completed -> {
+            if (completed.isCanceled()) {
+                future.cancel(false);
+            } else if (completed.isSuccessful()) {
+                future.complete(completed.getResult());
+            } else {
+                future.completeExceptionally(completed.getException() != null
+                        ? completed.getException() : new IllegalStateException("Task failed"));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Delivers the result on the main thread while the owner is alive.
+     * The future is cancelled when the owner is destroyed.
+     */
+    @MainThread
+    public static <T> void observe(@NonNull LifecycleOwner owner, @NonNull CompletableFuture<T> future,
+                                   @NonNull Callback<T> callback) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            future.cancel(false);
+            return;
+        }
+        DefaultLifecycleObserver cancelOnDestroy = new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                future.cancel(false);
+            }
+        };
+        lifecycle.addObserver(cancelOnDestroy);
+        future.whenComplete((result, error) -> AppExecutors.getInstance().mainThread().execute(() -> {
+            lifecycle.removeObserver(cancelOnDestroy);
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED || future.isCancelled()) {
+                return;
+            }
+            if (error != null) {
+                callback.onError(unwrap(error));
+            } else {
+                callback.onSuccess(result);
+            }
+        }));
+    }
+
+    /**
+     * Delivers the result on the main thread unless the future was cancelled
+     */
+    public static <T> void onMainThread(@NonNull CompletableFuture<T> future, @NonNull Callback<T> callback) {
+        future.whenComplete((result, error) -> AppExecutors.getInstance().mainThread().execute(() -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            if (error != null) {
+                callback.onError(unwrap(error));
+            } else {
+                callback.onSuccess(result);
+            }
+        }));
+    }
+
+    /**
+     * The cause of a failed stage, without the CompletionException wrappers
+     */
+    @NonNull
+    public static Throwable unwrap(@NonNull Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Message for listener based callers, which only report strings
+     */
+    @NonNull
+    public static String messageOf(@NonNull Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Futures started on behalf of an object without a lifecycle, such as a ViewModel.
+     * {@link #cancelAll()} is called from onCleared. Track a dependent stage of a write,
+     * not the write itself, so the write still runs when only its result is abandoned.
+     */
+    public static final class Scope {
+        private final Set<CompletableFuture<?>> running =
+                Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private volatile boolean cancelled;
+
+        @NonNull
+        public <T> CompletableFuture<T> track(@NonNull CompletableFuture<T> future) {
+            if (cancelled) {
+                future.cancel(false);
+                return future;
+            }
+            running.add(future);
+            future.whenComplete((result, error) -> running.remove(future));
+            return future;
+        }
+
+        public void cancelAll() {
+            cancelled = true;
+            for (CompletableFuture<?> future : running) {
+                future.cancel(false);
+            }
+            running.clear();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -1,19 +1,15 @@
 package com.example.migym.utils;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Build;
-import androidx.preference.PreferenceManager;
 import java.util.Locale;
 
 /**
  * Helper class to manage application locale and language settings
  */
 public class LocaleHelper {
-    private static final String SELECTED_LANGUAGE = "Locale.Helper.Selected.Language";
-
     public static Context onAttach(Context context) {
         String lang = getPersistedData(context, Locale.getDefault().getLanguage());
         return setLocale(context, lang);
@@ -34,15 +30,14 @@ public class LocaleHelper {
     }
 
     private static String getPersistedData(Context context, String defaultLanguage) {
-        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
-        return preferences.getString(SELECTED_LANGUAGE, defaultLanguage);
+        return PreferenceStore.getInstance(context).getSnapshot()
+                .get(PreferenceKeys.SELECTED_LANGUAGE, defaultLanguage);
     }
 
     private static void persist(Context context, String language) {
-        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
-        SharedPreferences.Editor editor = preferences.edit();
-        editor.putString(SELECTED_LANGUAGE, language);
-        editor.apply();
+        // An unchanged language is not written, so onAttach does not rewrite the file
+        PreferenceStore.getInstance(context).update(editor ->
+                editor.set(PreferenceKeys.SELECTED_LANGUAGE, language));
     }
 
     @SuppressWarnings("deprecation")
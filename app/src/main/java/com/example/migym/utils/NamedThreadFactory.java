@@ -0,0 +1,38 @@
+package com.example.migym.utils;
+
+import android.os.Process;
+import androidx.annotation.NonNull;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates background threads named "prefix-N" so they are easy to spot in traces.
+ */
+public class NamedThreadFactory implements ThreadFactory {
+    private final String prefix;
+    private final int priority;
+    private final AtomicInteger count = new AtomicInteger(1);
+
+    public NamedThreadFactory(@NonNull String prefix) {
+        this(prefix, Process.THREAD_PRIORITY_BACKGROUND);
+    }
+
+    /**
+     * @param prefix Thread name prefix
+     * @param priority Linux thread priority from {@link Process}
+     */
+    public NamedThreadFactory(@NonNull String prefix, int priority) {
+        this.prefix = prefix;
+        this.priority = priority;
+    }
+
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(priority);
+            runnable.run();
+        }, prefix + "-" + count.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
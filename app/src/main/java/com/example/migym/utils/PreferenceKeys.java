@@ -0,0 +1,73 @@
+package com.example.migym.utils;
+
+import com.example.migym.utils.PreferenceStore.Key;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every key kept in {@link PreferenceStore}. The names are the ones used in the old
+ * SharedPreferences files, so the migration copies them as they are.
+ */
+public final class PreferenceKeys {
+
+    // User session and settings, formerly in UserPrefs.xml
+    public static final Key<String> USER_ID = Key.string("user_id", null);
+    public static final Key<String> EMAIL = Key.string("email", "");
+    public static final Key<String> USERNAME = Key.string("username", "");
+    public static final Key<String> NAME = Key.string("name", "");
+    public static final Key<String> PHONE = Key.string("phone", "");
+    public static final Key<Double> WEIGHT = Key.decimal("weight", 0);
+    public static final Key<Double> HEIGHT = Key.decimal("height", 0);
+    public static final Key<Integer> AGE = Key.integer("age", 0);
+    public static final Key<Boolean> HEART_PROBLEMS = Key.bool("heart_problems", false);
+    public static final Key<String> HEART_PROBLEMS_DETAILS = Key.string("heart_problems_details", "");
+    public static final Key<String> PROFILE_IMAGE_URL = Key.string("profile_image_url", "");
+    public static final Key<String> ROLE = Key.string("role", "user");
+    public static final Key<String> LANGUAGE = Key.string("language", "es");
+    public static final Key<Boolean> NOTIFICATIONS_ENABLED = Key.bool("notifications_enabled", true);
+    public static final Key<Boolean> DARK_MODE = Key.bool("dark_mode", false);
+    public static final Key<Boolean> TIME_FORMAT_24H = Key.bool("time_format_24h", true);
+    public static final Key<Boolean> IS_LOGGED_IN = Key.bool("is_logged_in", false);
+
+    // Language chosen in LocaleHelper, formerly in the default preferences
+    public static final Key<String> SELECTED_LANGUAGE = Key.string("Locale.Helper.Selected.Language", null);
+
+    // Profile form, formerly in the default preferences
+    public static final Key<String> PROFILE_NAME = Key.string("profile_name", "");
+    public static final Key<String> PROFILE_AGE = Key.string("profile_age", "");
+    public static final Key<String> PROFILE_WEIGHT = Key.string("profile_weight", "");
+    public static final Key<String> PROFILE_HEIGHT = Key.string("profile_height", "");
+    public static final Key<Integer> PROFILE_GENDER = Key.integer("profile_gender", 0);
+    public static final Key<Boolean> PROFILE_HEART_PROBLEMS = Key.bool("profile_heart_problems", false);
+    public static final Key<String> PROFILE_HEART_DETAILS = Key.string("profile_heart_problems_details", "");
+    public static final Key<String> PROFILE_IMAGE_PATH = Key.string("profile_image_path", null);
+
+    // Reminder batching counters, see ReminderScheduler
+    public static final Key<Integer> REMINDER_WAKEUPS = Key.integer("reminder_wakeups", 0);
+    public static final Key<Integer> REMINDER_TRIGGERS_SHOWN = Key.integer("reminder_triggers_shown", 0);
+    public static final Key<Boolean> LEGACY_REMINDERS_CANCELLED = Key.bool("legacy_reminders_cancelled", false);
+
+    static final String USER_PREFS_FILE = "UserPrefs";
+
+    /**
+     * Keys of the user's data, removed on logout
+     */
+    static final List<Key<?>> USER_DATA = Collections.unmodifiableList(Arrays.asList(
+            USER_ID, USERNAME, EMAIL, PHONE, WEIGHT, HEIGHT, AGE, HEART_PROBLEMS,
+            HEART_PROBLEMS_DETAILS, ROLE, PROFILE_IMAGE_URL));
+
+    // UserPrefs.xml is deleted once migrated
+    static final List<Key<?>> FROM_USER_PREFS = Collections.unmodifiableList(Arrays.asList(
+            USER_ID, EMAIL, USERNAME, NAME, PHONE, WEIGHT, HEIGHT, AGE, HEART_PROBLEMS,
+            HEART_PROBLEMS_DETAILS, PROFILE_IMAGE_URL, ROLE, LANGUAGE, NOTIFICATIONS_ENABLED,
+            DARK_MODE, TIME_FORMAT_24H, IS_LOGGED_IN));
+
+    // The default file stays, it also holds the settings screen's values
+    static final List<Key<?>> FROM_DEFAULT_PREFS = Collections.unmodifiableList(Arrays.asList(
+            SELECTED_LANGUAGE, PROFILE_NAME, PROFILE_AGE, PROFILE_WEIGHT, PROFILE_HEIGHT,
+            PROFILE_GENDER, PROFILE_HEART_PROBLEMS, PROFILE_HEART_DETAILS, PROFILE_IMAGE_PATH));
+
+    private PreferenceKeys() {
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.migym.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.AtomicFile;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.preference.PreferenceManager;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * The app's key-value settings, kept in one binary file.
+ * <p>
+ * Reads go to an immutable {@link Snapshot} held in memory, so they never lock or touch
+ * the disk. Writes go through {@link #update}, which applies all the changes of a block
+ * at once and rewrites the file a single time on {@link AppExecutors#diskWrite()}; updates
+ * made while a write is queued are saved by that same write. Changes can be observed per
+ * key with {@link #observe}.
+ * <p>
+ * On first use the values are moved over from the SharedPreferences files listed in
+ * {@link PreferenceKeys}. The file is read synchronously the first time the store is
+ * needed, like SharedPreferences. A file that cannot be read is moved aside as
+ * {@code preferences.bin.corrupt} and the store starts again from the old files.
+ */
+public final class PreferenceStore {
+    private static final String TAG = "PreferenceStore";
+    private static final String FILE_NAME = "preferences.bin";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final int MAGIC = 0x4D475046;
+    private static final int FORMAT_VERSION = 1;
+
+    private static volatile PreferenceStore instance;
+
+    private final AtomicFile file;
+    private final AppExecutors executors = AppExecutors.getInstance();
+    private final Object lock = new Object();
+    private final MutableLiveData<Snapshot> snapshots;
+    private volatile Snapshot snapshot;
+    // Guarded by lock; completes when the queued write reaches the disk
+    private CompletableFuture<Void> pendingWrite;
+
+    /**
+     * Type of a value, as stored in the file
+     */
+    public enum Type {
+        STRING, BOOLEAN, INT, DOUBLE;
+
+        @Nullable
+        Object convert(@Nullable Object value) {
+            if (value == null) return null;
+            switch (this) {
+                case STRING:
+                    return value instanceof String ? value : null;
+                case BOOLEAN:
+                    return value instanceof Boolean ? value : null;
+                case INT:
+                    return value instanceof Integer ? value : null;
+                case DOUBLE:
+                    // SharedPreferences only had floats
+                    return value instanceof Number ? ((Number) value).doubleValue() : null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * A typed preference with its default value
+     */
+    public static final class Key<T> {
+        private final String name;
+        private final Type type;
+        private final T defaultValue;
+
+        private Key(String name, Type type, T defaultValue) {
+            this.name = name;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+
+        public static Key<String> string(@NonNull String name, @Nullable String defaultValue) {
+            return new Key<>(name, Type.STRING, defaultValue);
+        }
+
+        public static Key<Boolean> bool(@NonNull String name, boolean defaultValue) {
+            return new Key<>(name, Type.BOOLEAN, defaultValue);
+        }
+
+        public static Key<Integer> integer(@NonNull String name, int defaultValue) {
+            return new Key<>(name, Type.INT, defaultValue);
+        }
+
+        public static Key<Double> decimal(@NonNull String name, double defaultValue) {
+            return new Key<>(name, Type.DOUBLE, defaultValue);
+        }
+
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        @NonNull
+        public Type getType() {
+            return type;
+        }
+
+        public T getDefaultValue() {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Immutable view of every value at one point in time
+     */
+    public static final class Snapshot {
+        private final Map<String, Object> values;
+
+        private Snapshot(Map<String, Object> values) {
+            this.values = Collections.unmodifiableMap(values);
+        }
+
+        public <T> T get(@NonNull Key<T> key) {
+            return get(key, key.defaultValue);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(@NonNull Key<T> key, T defaultValue) {
+            Object value = values.get(key.name);
+            return value != null ? (T) value : defaultValue;
+        }
+
+        public boolean contains(@NonNull Key<?> key) {
+            return values.containsKey(key.name);
+        }
+    }
+
+    /**
+     * Changes made inside one {@link #update} block
+     */
+    public static final class Editor {
+        private final Map<String, Object> values;
+        private boolean changed;
+
+        private Editor(Map<String, Object> values) {
+            this.values = new HashMap<>(values);
+        }
+
+        /**
+         * @param value New value; null removes the key
+         */
+        @NonNull
+        public <T> Editor set(@NonNull Key<T> key, @Nullable T value) {
+            if (value == null) {
+                return remove(key);
+            }
+            Object stored = key.type.convert(value);
+            if (stored == null) {
+                throw new IllegalArgumentException("Wrong type for " + key.name + ": " + value.getClass().getSimpleName());
+            }
+            Object previous = values.put(key.name, stored);
+            changed |= !Objects.equals(previous, stored);
+            return this;
+        }
+
+        @NonNull
+        public Editor remove(@NonNull Key<?> key) {
+            changed |= values.remove(key.name) != null;
+            return this;
+        }
+
+        /**
+         * Reads a value as changed so far in this block
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(@NonNull Key<T> key) {
+            Object value = values.get(key.name);
+            return value != null ? (T) value : key.defaultValue;
+        }
+    }
+
+    private PreferenceStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        Map<String, Object> values = read();
+        if (values == null) {
+            values = migrate(context);
+        }
+        snapshot = new Snapshot(values);
+        snapshots = new MutableLiveData<>(snapshot);
+    }
+
+    public static PreferenceStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (PreferenceStore.class) {
+                if (instance == null) {
+                    // Called from attachBaseContext, before there is an application context
+                    Context appContext = context.getApplicationContext();
+                    instance = new PreferenceStore(appContext != null ? appContext : context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Current values; the returned snapshot never changes
+     */
+    @NonNull
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public <T> T get(@NonNull Key<T> key) {
+        return snapshot.get(key);
+    }
+
+    /**
+     * Applies every change made by the block at once. Readers see either none or all
+     * of them, and the file is written once. The block runs under a lock, so it must
+     * only touch the editor.
+     * @return Future completed when the changes are on disk
+     */
+    @NonNull
+    public CompletableFuture<Void> update(@NonNull Consumer<Editor> block) {
+        synchronized (lock) {
+            Editor editor = new Editor(snapshot.values);
+            block.accept(editor);
+            if (!editor.changed) {
+                return pendingWrite != null ? pendingWrite : CompletableFuture.completedFuture(null);
+            }
+            snapshot = new Snapshot(editor.values);
+            snapshots.postValue(snapshot);
+            if (pendingWrite == null) {
+                pendingWrite = new CompletableFuture<>();
+                try {
+                    executors.diskWrite().execute("prefs-write", this::writePending);
+                } catch (RejectedExecutionException e) {
+                    // The values stay in memory and the next update queues them again
+                    Log.e(TAG, "Error queueing preferences write", e);
+                    CompletableFuture<Void> failed = pendingWrite;
+                    pendingWrite = null;
+                    failed.completeExceptionally(e);
+                    return failed;
+                }
+            }
+            return pendingWrite;
+        }
+    }
+
+    /**
+     * Emits the key's value now and again each time it changes
+     */
+    @NonNull
+    public <T> LiveData<T> observe(@NonNull Key<T> key) {
+        MediatorLiveData<T> values = new MediatorLiveData<>();
+        values.addSource(snapshots, new Observer<Snapshot>() {
+            private boolean first = true;
+
+            @Override
+            public void onChanged(Snapshot current) {
+                T value = current.get(key);
+                if (first || !Objects.equals(values.getValue(), value)) {
+                    first = false;
+                    values.setValue(value);
+                }
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Every new snapshot; quick successive updates may be delivered as one
+     */
+    @NonNull
+    public LiveData<Snapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    private void writePending() {
+        Snapshot toWrite;
+        CompletableFuture<Void> done;
+        synchronized (lock) {
+            toWrite = snapshot;
+            done = pendingWrite;
+            pendingWrite = null;
+        }
+        try {
+            write(toWrite.values);
+            done.complete(null);
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing preferences", e);
+            done.completeExceptionally(e);
+        }
+    }
+
+    private void write(Map<String, Object> values) throws IOException {
+        FileOutputStream stream = file.startWrite();
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException | RuntimeException e) {
+            file.failWrite(stream);
+            throw e;
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(Type.STRING.ordinal());
+            out.writeUTF((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(Type.BOOLEAN.ordinal());
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(Type.INT.ordinal());
+            out.writeInt((Integer) value);
+        } else if (value instanceof Double) {
+            out.writeByte(Type.DOUBLE.ordinal());
+            out.writeDouble((Double) value);
+        } else {
+            throw new IllegalArgumentException("Unsupported value " + value);
+        }
+    }
+
+    // Null when there is no usable file, so the values are migrated again
+    @Nullable
+    private Map<String, Object> read() {
+        Map<String, Object> values = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                Log.e(TAG, "Unknown preferences format");
+                values = null;
+            } else {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String name = in.readUTF();
+                    values.put(name, readValue(in));
+                }
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // A write is atomic, so this is a damaged disk rather than a half-written file
+            Log.e(TAG, "Error reading preferences", e);
+            values = null;
+        }
+        if (values == null) {
+            keepAside();
+        }
+        return values;
+    }
+
+    // Keeps the unreadable file for diagnosis instead of overwriting it
+    private void keepAside() {
+        File base = file.getBaseFile();
+        File aside = new File(base.getPath() + CORRUPT_SUFFIX);
+        if (aside.exists() && !aside.delete()) {
+            Log.w(TAG, "Could not replace " + aside);
+        }
+        if (base.renameTo(aside)) {
+            Log.w(TAG, "Moved unreadable preferences to " + aside + ", migrating again");
+        } else {
+            Log.w(TAG, "Could not move unreadable preferences aside, migrating again");
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        Type type = Type.values()[in.readByte()];
+        switch (type) {
+            case STRING:
+                return in.readUTF();
+            case BOOLEAN:
+                return in.readBoolean();
+            case INT:
+                return in.readInt();
+            case DOUBLE:
+                return in.readDouble();
+            default:
+                throw new IOException("Unknown type " + type);
+        }
+    }
+
+    /**
+     * Copies the values of the old SharedPreferences files and writes them in one go.
+     * Only then are they removed from the old files, so an interrupted migration runs
+     * again on the next start.
+     */
+    private Map<String, Object> migrate(Context context) {
+        Map<String, Object> values = new HashMap<>();
+        SharedPreferences userPrefs = context.getSharedPreferences(PreferenceKeys.USER_PREFS_FILE, Context.MODE_PRIVATE);
+        SharedPreferences defaultPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        copy(userPrefs, PreferenceKeys.FROM_USER_PREFS, values);
+        copy(defaultPrefs, PreferenceKeys.FROM_DEFAULT_PREFS, values);
+        try {
+            write(values);
+        } catch (IOException e) {
+            Log.e(TAG, "Error migrating preferences, keeping the old files", e);
+            return values;
+        }
+
+        context.deleteSharedPreferences(PreferenceKeys.USER_PREFS_FILE);
+        SharedPreferences.Editor editor = defaultPrefs.edit();
+        for (Key<?> key : PreferenceKeys.FROM_DEFAULT_PREFS) {
+            editor.remove(key.name);
+        }
+        editor.apply();
+        Log.d(TAG, "Migrated " + values.size() + " preferences");
+        return values;
+    }
+
+    private static void copy(SharedPreferences prefs, List<Key<?>> keys, Map<String, Object> values) {
+        Map<String, ?> old = prefs.getAll();
+        for (Key<?> key : keys) {
+            Object value = key.type.convert(old.get(key.name));
+            if (value != null) {
+                values.put(key.name, value);
+            }
+        }
+    }
+}
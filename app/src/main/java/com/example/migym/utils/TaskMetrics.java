@@ -0,0 +1,208 @@
+package com.example.migym.utils;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tag statistics for the tasks run by {@link AppExecutors}: how many are waiting,
+ * how long they waited in the queue and how long they ran. Recording is a few atomic
+ * updates, so it stays on in release builds.
+ */
+public final class TaskMetrics {
+    private static final String TAG = "TaskMetrics";
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    TaskMetrics() {
+    }
+
+    void onQueued(String tag) {
+        Counters tagCounters = countersFor(tag);
+        tagCounters.submitted.incrementAndGet();
+        updateMax(tagCounters.maxPending, tagCounters.pending.incrementAndGet());
+    }
+
+    void onStarted(String tag, long waitNanos) {
+        Counters tagCounters = countersFor(tag);
+        tagCounters.pending.decrementAndGet();
+        tagCounters.totalWaitNanos.addAndGet(waitNanos);
+        updateMax(tagCounters.maxWaitNanos, waitNanos);
+    }
+
+    void onFinished(String tag, long runNanos) {
+        Counters tagCounters = countersFor(tag);
+        tagCounters.completed.incrementAndGet();
+        tagCounters.totalRunNanos.addAndGet(runNanos);
+        updateMax(tagCounters.maxRunNanos, runNanos);
+    }
+
+    // Undoes onQueued for a task the executor refused
+    void onDropped(String tag) {
+        Counters tagCounters = countersFor(tag);
+        tagCounters.submitted.decrementAndGet();
+        tagCounters.pending.decrementAndGet();
+    }
+
+    void onRejected(String tag) {
+        countersFor(tag).rejected.incrementAndGet();
+    }
+
+    /**
+     * @return Statistics per tag, longest total wait first
+     */
+    @NonNull
+    public List<TaskStats> snapshot() {
+        List<TaskStats> stats = new ArrayList<>(counters.size());
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            stats.add(entry.getValue().toStats(entry.getKey()));
+        }
+        Collections.sort(stats, (a, b) -> Long.compare(b.getTotalWaitMillis(), a.getTotalWaitMillis()));
+        return stats;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    public void logSummary() {
+        for (TaskStats stats : snapshot()) {
+            Log.d(TAG, stats.toString());
+        }
+    }
+
+    private Counters countersFor(String tag) {
+        Counters tagCounters = counters.get(tag);
+        if (tagCounters == null) {
+            tagCounters = new Counters();
+            Counters existing = counters.putIfAbsent(tag, tagCounters);
+            if (existing != null) {
+                tagCounters = existing;
+            }
+        }
+        return tagCounters;
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+
+    private static final class Counters {
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong pending = new AtomicLong();
+        final AtomicLong maxPending = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicLong totalRunNanos = new AtomicLong();
+        final AtomicLong maxRunNanos = new AtomicLong();
+
+        TaskStats toStats(String tag) {
+            return new TaskStats(tag, submitted.get(), completed.get(), rejected.get(), pending.get(),
+                    maxPending.get(), totalWaitNanos.get(), maxWaitNanos.get(), totalRunNanos.get(),
+                    maxRunNanos.get());
+        }
+    }
+
+    /**
+     * Immutable statistics for one task tag
+     */
+    public static final class TaskStats {
+        private final String tag;
+        private final long submitted;
+        private final long completed;
+        private final long rejected;
+        private final long pending;
+        private final long maxPending;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long totalRunNanos;
+        private final long maxRunNanos;
+
+        TaskStats(String tag, long submitted, long completed, long rejected, long pending, long maxPending,
+                  long totalWaitNanos, long maxWaitNanos, long totalRunNanos, long maxRunNanos) {
+            this.tag = tag;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.pending = pending;
+            this.maxPending = maxPending;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.totalRunNanos = totalRunNanos;
+            this.maxRunNanos = maxRunNanos;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * Tasks that found their pool's queue full and went to the overflow thread or failed
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Tasks queued and not started yet
+         */
+        public long getPending() {
+            return pending;
+        }
+
+        public long getMaxPending() {
+            return maxPending;
+        }
+
+        public long getTotalWaitMillis() {
+            return totalWaitNanos / 1_000_000L;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000L;
+        }
+
+        public long getAverageWaitMillis() {
+            return completed == 0 ? 0 : totalWaitNanos / completed / 1_000_000L;
+        }
+
+        public long getTotalRunMillis() {
+            return totalRunNanos / 1_000_000L;
+        }
+
+        public long getMaxRunMillis() {
+            return maxRunNanos / 1_000_000L;
+        }
+
+        public long getAverageRunMillis() {
+            return completed == 0 ? 0 : totalRunNanos / completed / 1_000_000L;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "tag=" + tag + " submitted=" + submitted + " rejected=" + rejected
+                    + " pending=" + pending + " maxPending=" + maxPending
+                    + " wait avg=" + getAverageWaitMillis() + "ms max=" + getMaxWaitMillis()
+                    + "ms run avg=" + getAverageRunMillis() + "ms max=" + getMaxRunMillis() + "ms";
+        }
+    }
+}
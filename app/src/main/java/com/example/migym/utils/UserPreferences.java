@@ -1,46 +1,27 @@
 package com.example.migym.utils;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-import androidx.preference.PreferenceManager;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseUser;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import com.example.migym.models.User;
+import com.example.migym.utils.PreferenceStore.Key;
 
+/**
+ * Datos del usuario guardados en {@link PreferenceStore}.
+ * Cada método guarda sus cambios de una vez; para varios valores, {@link #saveProfile(User)}.
+ */
 public class UserPreferences {
-    private static final String KEY_USER_ID = "user_id";
-    private static final String KEY_EMAIL = "email";
-    private static final String KEY_USERNAME = "username";
-    private static final String KEY_PHONE = "phone";
-    private static final String KEY_WEIGHT = "weight";
-    private static final String KEY_HEIGHT = "height";
-    private static final String KEY_AGE = "age";
-    private static final String KEY_HEART_PROBLEMS = "heart_problems";
-    private static final String KEY_HEART_PROBLEMS_DETAILS = "heart_problems_details";
-    private static final String KEY_PROFILE_IMAGE_URL = "profile_image_url";
-    private static final String KEY_ROLE = "role";
-    private static final String KEY_LANGUAGE = "language";
-    private static final String KEY_NOTIFICATIONS_ENABLED = "notifications_enabled";
-    private static final String KEY_DARK_MODE = "dark_mode";
-    private static final String KEY_TIME_FORMAT = "time_format_24h";
-    private static final String KEY_IS_LOGGED_IN = "is_logged_in";
-    private static final String PREF_NAME = "UserPrefs";
-    private static final String KEY_NAME = "name";
-
-    private final SharedPreferences prefs;
+    private final PreferenceStore store;
     private final ImageStorage imageStorage;
 
     public UserPreferences(@NonNull Context context) {
-        prefs = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        store = PreferenceStore.getInstance(context);
         imageStorage = new ImageStorage(context);
     }
 
     public void saveProfileImageUrl(String photoUrl) {
         if (photoUrl != null && !photoUrl.isEmpty()) {
-            prefs.edit()
-                .putString(KEY_PROFILE_IMAGE_URL, photoUrl)
-                .apply();
+            set(PreferenceKeys.PROFILE_IMAGE_URL, photoUrl);
             Log.d("UserPreferences", "Profile image URL saved: " + photoUrl);
         } else {
             Log.w("UserPreferences", "Attempted to save null or empty profile image URL");
@@ -48,201 +29,196 @@ public class UserPreferences {
     }
 
     public String getProfileImageUrl() {
-        String url = prefs.getString(KEY_PROFILE_IMAGE_URL, "");
+        String url = store.get(PreferenceKeys.PROFILE_IMAGE_URL);
         Log.d("UserPreferences", "Retrieved profile image URL: " + url);
         return url;
     }
 
     public void clearProfileImage() {
-        prefs.edit()
-            .remove(KEY_PROFILE_IMAGE_URL)
-            .apply();
+        store.update(editor -> editor.remove(PreferenceKeys.PROFILE_IMAGE_URL));
         Log.d("UserPreferences", "Profile image URL cleared");
     }
 
     public void saveUserData(String userId, String email, String username) {
-        prefs.edit()
-            .putString(KEY_USER_ID, userId)
-            .putString(KEY_EMAIL, email)
-            .putString(KEY_USERNAME, username)
-            .putBoolean(KEY_IS_LOGGED_IN, true)
-            .apply();
+        store.update(editor -> editor
+            .set(PreferenceKeys.USER_ID, userId)
+            .set(PreferenceKeys.EMAIL, email)
+            .set(PreferenceKeys.USERNAME, username)
+            .set(PreferenceKeys.IS_LOGGED_IN, true));
         Log.d("UserPreferences", "User data saved - ID: " + userId + ", Email: " + email + ", Username: " + username);
     }
 
+    /**
+     * Guarda los datos del perfil en una sola escritura
+     */
+    public void saveProfile(@NonNull User user) {
+        store.update(editor -> editor
+            .set(PreferenceKeys.NAME, user.getName())
+            .set(PreferenceKeys.EMAIL, user.getEmail())
+            .set(PreferenceKeys.WEIGHT, user.getWeight())
+            .set(PreferenceKeys.HEIGHT, user.getHeight())
+            .set(PreferenceKeys.AGE, user.getAge())
+            .set(PreferenceKeys.HEART_PROBLEMS, user.hasHeartProblems())
+            .set(PreferenceKeys.HEART_PROBLEMS_DETAILS, user.getHeartProblemsDetails()));
+    }
+
     public void savePhone(String phone) {
-        prefs.edit()
-            .putString(KEY_PHONE, phone)
-            .apply();
+        set(PreferenceKeys.PHONE, phone);
     }
 
     public void saveWeight(double weight) {
-        prefs.edit()
-            .putFloat(KEY_WEIGHT, (float) weight)
-            .apply();
+        set(PreferenceKeys.WEIGHT, weight);
     }
 
     public void saveHeight(double height) {
-        prefs.edit()
-            .putFloat(KEY_HEIGHT, (float) height)
-            .apply();
+        set(PreferenceKeys.HEIGHT, height);
     }
 
     public void saveAge(int age) {
-        prefs.edit()
-            .putInt(KEY_AGE, age)
-            .apply();
+        set(PreferenceKeys.AGE, age);
     }
 
     public void saveHeartProblems(boolean hasHeartProblems) {
-        prefs.edit()
-            .putBoolean(KEY_HEART_PROBLEMS, hasHeartProblems)
-            .apply();
+        set(PreferenceKeys.HEART_PROBLEMS, hasHeartProblems);
     }
 
     public void saveHeartProblemsDetails(String details) {
-        prefs.edit()
-            .putString(KEY_HEART_PROBLEMS_DETAILS, details)
-            .apply();
+        set(PreferenceKeys.HEART_PROBLEMS_DETAILS, details);
     }
 
     public void saveProfileImagePath(String path) {
-        prefs.edit()
-            .putString(KEY_PROFILE_IMAGE_URL, path)
-            .apply();
+        set(PreferenceKeys.PROFILE_IMAGE_URL, path);
     }
 
     public String getProfileImagePath() {
-        return prefs.getString(KEY_PROFILE_IMAGE_URL, null);
+        return store.getSnapshot().get(PreferenceKeys.PROFILE_IMAGE_URL, null);
     }
 
     public void saveRole(String role) {
-        prefs.edit()
-            .putString(KEY_ROLE, role)
-            .apply();
+        set(PreferenceKeys.ROLE, role);
     }
 
     public void clearUserData() {
-        clearProfileImage();
-        prefs.edit()
-            .remove(KEY_USER_ID)
-            .remove(KEY_USERNAME)
-            .remove(KEY_EMAIL)
-            .remove(KEY_PHONE)
-            .remove(KEY_WEIGHT)
-            .remove(KEY_HEIGHT)
-            .remove(KEY_AGE)
-            .remove(KEY_HEART_PROBLEMS)
-            .remove(KEY_HEART_PROBLEMS_DETAILS)
-            .remove(KEY_ROLE)
-            .putBoolean(KEY_IS_LOGGED_IN, false)
-            .apply();
+        store.update(editor -> {
+            for (Key<?> key : PreferenceKeys.USER_DATA) {
+                editor.remove(key);
+            }
+            editor.set(PreferenceKeys.IS_LOGGED_IN, false);
+        });
         Log.d("UserPreferences", "All user data cleared");
     }
 
     public boolean isUserLoggedIn() {
-        return prefs.getBoolean(KEY_IS_LOGGED_IN, false);
+        return store.get(PreferenceKeys.IS_LOGGED_IN);
     }
 
     public String getUserId() {
-        return prefs.getString(KEY_USER_ID, null);
+        return store.get(PreferenceKeys.USER_ID);
     }
 
     public String getUsername() {
-        return prefs.getString(KEY_USERNAME, "");
+        return store.get(PreferenceKeys.USERNAME);
     }
 
     public String getEmail() {
-        return prefs.getString(KEY_EMAIL, "");
+        return store.get(PreferenceKeys.EMAIL);
     }
 
     public String getPhone() {
-        return prefs.getString(KEY_PHONE, "");
+        return store.get(PreferenceKeys.PHONE);
     }
 
     public double getWeight() {
-        return prefs.getFloat(KEY_WEIGHT, 0);
+        return store.get(PreferenceKeys.WEIGHT);
     }
 
     public double getHeight() {
-        return prefs.getFloat(KEY_HEIGHT, 0);
+        return store.get(PreferenceKeys.HEIGHT);
     }
 
     public int getAge() {
-        return prefs.getInt(KEY_AGE, 0);
+        return store.get(PreferenceKeys.AGE);
     }
 
     public boolean hasHeartProblems() {
-        return prefs.getBoolean(KEY_HEART_PROBLEMS, false);
+        return store.get(PreferenceKeys.HEART_PROBLEMS);
     }
 
     public String getHeartProblemsDetails() {
-        return prefs.getString(KEY_HEART_PROBLEMS_DETAILS, "");
+        return store.get(PreferenceKeys.HEART_PROBLEMS_DETAILS);
     }
 
     public String getRole() {
-        return prefs.getString(KEY_ROLE, "user");
+        return store.get(PreferenceKeys.ROLE);
     }
 
     public void setLanguage(String language) {
-        prefs.edit().putString(KEY_LANGUAGE, language).apply();
+        set(PreferenceKeys.LANGUAGE, language);
     }
 
     public String getLanguage() {
-        return prefs.getString(KEY_LANGUAGE, "es");
+        return store.get(PreferenceKeys.LANGUAGE);
     }
 
     public void setNotificationsEnabled(boolean enabled) {
-        prefs.edit().putBoolean(KEY_NOTIFICATIONS_ENABLED, enabled).apply();
+        set(PreferenceKeys.NOTIFICATIONS_ENABLED, enabled);
     }
 
     public boolean areNotificationsEnabled() {
-        return prefs.getBoolean(KEY_NOTIFICATIONS_ENABLED, true);
+        return store.get(PreferenceKeys.NOTIFICATIONS_ENABLED);
     }
 
     public void setDarkMode(boolean enabled) {
-        prefs.edit().putBoolean(KEY_DARK_MODE, enabled).apply();
+        set(PreferenceKeys.DARK_MODE, enabled);
     }
 
     public boolean isDarkModeEnabled() {
-        return prefs.getBoolean(KEY_DARK_MODE, false);
+        return store.get(PreferenceKeys.DARK_MODE);
     }
 
     public void setTimeFormat24h(boolean enabled) {
-        prefs.edit().putBoolean(KEY_TIME_FORMAT, enabled).apply();
+        set(PreferenceKeys.TIME_FORMAT_24H, enabled);
     }
 
     public boolean isTimeFormat24h() {
-        return prefs.getBoolean(KEY_TIME_FORMAT, true);
+        return store.get(PreferenceKeys.TIME_FORMAT_24H);
     }
 
     public boolean isLoggedIn() {
-        return prefs.getBoolean("is_logged_in", false);
+        return store.get(PreferenceKeys.IS_LOGGED_IN);
     }
 
     public void setLoggedIn(boolean loggedIn) {
-        prefs.edit().putBoolean("is_logged_in", loggedIn).apply();
+        set(PreferenceKeys.IS_LOGGED_IN, loggedIn);
     }
 
     public void deleteProfileImage() {
         imageStorage.deleteProfileImage();
-        prefs.edit().remove(KEY_PROFILE_IMAGE_URL).apply();
+        store.update(editor -> editor.remove(PreferenceKeys.PROFILE_IMAGE_URL));
     }
 
     public void saveEmail(String email) {
-        prefs.edit().putString(KEY_EMAIL, email).apply();
+        set(PreferenceKeys.EMAIL, email);
     }
 
     public String getName() {
-        return prefs.getString(KEY_NAME, "");
+        return store.get(PreferenceKeys.NAME);
     }
 
     public void saveName(String name) {
-        prefs.edit().putString(KEY_NAME, name).apply();
+        set(PreferenceKeys.NAME, name);
     }
 
     public void clear() {
-        prefs.edit().clear().apply();
+        store.update(editor -> {
+            for (Key<?> key : PreferenceKeys.FROM_USER_PREFS) {
+                editor.remove(key);
+            }
+        });
         imageStorage.deleteProfileImage();
     }
+
+    private <T> void set(Key<T> key, T value) {
+        store.update(editor -> editor.set(key, value));
+    }
 } 
\ No newline at end of file
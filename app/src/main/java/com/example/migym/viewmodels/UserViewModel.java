@@ -3,14 +3,17 @@ package com.example.migym.viewmodels;
 import android.app.Application;
 import android.net.Uri;
 import android.util.Log;
+import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.example.migym.models.User;
 import com.example.migym.repositories.UserRepository;
 import com.example.migym.repositories.UserRepository.OnProfileUpdateListener;
+import com.example.migym.utils.Futures;
 import com.example.migym.utils.UserPreferences;
 import com.google.firebase.auth.FirebaseAuth;
+import java.util.concurrent.CompletableFuture;
 
 public class UserViewModel extends AndroidViewModel {
     private static final String TAG = "UserViewModel";
@@ -21,6 +24,7 @@ public class UserViewModel extends AndroidViewModel {
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<Double> uploadProgress = new MutableLiveData<>(0.0);
     private final MutableLiveData<Boolean> isLoggedOut = new MutableLiveData<>(false);
+    private final Futures.Scope futures = new Futures.Scope();
 
     public UserViewModel(Application application) {
         super(application);
@@ -37,32 +41,31 @@ public class UserViewModel extends AndroidViewModel {
         }
 
         isLoading.setValue(true);
-        final OnProfileUpdateListener finalListener = listener;
-        repository.uploadProfileImage(photoUri, new OnProfileUpdateListener() {
-            @Override
-            public void onSuccess(String imageUrl) {
-                isLoading.postValue(false);
-                uploadProgress.postValue(0.0);
-                if (finalListener != null) {
-                    finalListener.onSuccess(imageUrl);
-                }
+        CompletableFuture<String> upload = repository.uploadProfileImage(photoUri, progress -> {
+            uploadProgress.postValue(progress);
+            if (listener != null) {
+                listener.onProgress(progress);
             }
-
+        });
+        // La subida sigue aunque se destruya el ViewModel, solo se descarta el resultado
+        Futures.onMainThread(futures.track(upload.thenApply(url -> url)), new Futures.Callback<String>() {
             @Override
-            public void onError(String error) {
-                isLoading.postValue(false);
-                uploadProgress.postValue(0.0);
-                errorMessage.postValue(error);
-                if (finalListener != null) {
-                    finalListener.onError(error);
+            public void onSuccess(String imageUrl) {
+                isLoading.setValue(false);
+                uploadProgress.setValue(0.0);
+                if (listener != null) {
+                    listener.onSuccess(imageUrl);
                 }
             }
 
             @Override
-            public void onProgress(double progress) {
-                uploadProgress.postValue(progress);
-                if (finalListener != null) {
-                    finalListener.onProgress(progress);
+            public void onError(@NonNull Throwable error) {
+                String message = Futures.messageOf(error);
+                isLoading.setValue(false);
+                uploadProgress.setValue(0.0);
+                errorMessage.setValue(message);
+                if (listener != null) {
+                    listener.onError(message);
                 }
             }
         });
@@ -89,21 +92,17 @@ public class UserViewModel extends AndroidViewModel {
     public void updateProfile(String name, String email) {
         final User updatedUser = createUpdatedUser(name, email);
         
-        repository.updateUserProfile(updatedUser, new UserRepository.OnProfileUpdateListener() {
+        Futures.onMainThread(futures.track(repository.updateUserProfile(updatedUser).thenApply(url -> url)),
+                new Futures.Callback<String>() {
             @Override
             public void onSuccess(String imageUrl) {
-                currentUser.postValue(updatedUser);
-                errorMessage.postValue(null);
-            }
-
-            @Override
-            public void onError(String error) {
-                errorMessage.postValue(error);
+                currentUser.setValue(updatedUser);
+                errorMessage.setValue(null);
             }
 
             @Override
-            public void onProgress(double progress) {
-                uploadProgress.postValue(progress);
+            public void onError(@NonNull Throwable error) {
+                errorMessage.setValue("Error al actualizar el perfil: " + Futures.messageOf(error));
             }
         });
     }
@@ -183,6 +182,7 @@ public class UserViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        futures.cancelAll();
         repository.cleanup();
     }
 } 
\ No newline at end of file
@@ -5,29 +5,39 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.net.Uri;
 import android.provider.CalendarContract;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
+import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.example.migym.adapters.WorkoutRow;
+import com.example.migym.adapters.WorkoutRowFactory;
+import com.example.migym.data.WorkoutWeek;
+import com.example.migym.data.WorkoutWriteResult;
 import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutLog;
+import com.example.migym.models.WorkoutSummary;
 import com.example.migym.repositories.WorkoutRepository;
 import com.example.migym.notifications.WorkoutNotificationManager;
+import com.example.migym.utils.AppExecutors;
+import com.example.migym.utils.Futures;
 
 public class WorkoutViewModel extends AndroidViewModel {
     private static final String TAG = "WorkoutViewModel";
     private final WorkoutRepository repository;
     private final LiveData<List<Workout>> allWorkouts;
-    private final ExecutorService executorService;
+    private final AppExecutors executors = AppExecutors.getInstance();
+    private final Futures.Scope futures = new Futures.Scope();
     private final WorkoutNotificationManager notificationManager;
     private final MutableLiveData<Workout> selectedWorkout = new MutableLiveData<>();
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final WorkoutRowFactory rowFactory;
+    private final Map<Integer, LiveData<List<WorkoutRow>>> rowsByDay = new HashMap<>();
 
     public interface OnWorkoutAddListener {
         void onWorkoutAdded();
@@ -39,8 +49,8 @@ public class WorkoutViewModel extends AndroidViewModel {
         super(application);
         repository = new WorkoutRepository(application);
         allWorkouts = repository.getAllWorkouts();
-        executorService = Executors.newSingleThreadExecutor();
         notificationManager = new WorkoutNotificationManager(application);
+        rowFactory = new WorkoutRowFactory(application);
     }
 
     public LiveData<List<Workout>> getAllWorkouts() {
@@ -56,63 +66,45 @@ public class WorkoutViewModel extends AndroidViewModel {
             return;
         }
 
-        executorService.execute(() -> {
-            try {
-                // Validate workout data
-                if (!validateWorkout(workout, listener)) {
-                    return;
-                }
+        // Validation is cheap, so only the transactional save leaves the calling thread
+        if (!validateWorkout(workout, listener)) {
+            return;
+        }
 
-                // Check for time conflicts
-                List<Workout> conflicts = repository.getWorkoutsAtTimeSync(workout.getDayOfWeek(), workout.getTime());
-                if (!conflicts.isEmpty()) {
-                    mainHandler.post(() -> {
-                        if (listener != null) {
-                            listener.onConflict(conflicts);
-                        }
-                    });
+        // The save always completes; only the callback is dropped once the view model is cleared
+        CompletableFuture<WorkoutWriteResult> saved = futures.track(
+                repository.saveWorkout(workout, false).thenApply(result -> result));
+        Futures.onMainThread(saved, new Futures.Callback<WorkoutWriteResult>() {
+            @Override
+            public void onSuccess(WorkoutWriteResult result) {
+                if (!result.isSaved()) {
+                    if (listener != null) {
+                        listener.onConflict(result.getConflicts());
+                    }
                     return;
                 }
+                if (listener != null) {
+                    listener.onWorkoutAdded();
+                }
+                // Schedule notification if enabled
+                if (result.getWorkout().isNotificationEnabled()) {
+                    notificationManager.scheduleWorkoutNotification(result.getWorkout());
+                }
+            }
 
-                // Add workout to repository
-                repository.insertWorkout(workout, new WorkoutRepository.OnWorkoutOperationListener() {
-                    @Override
-                    public void onSuccess(Workout addedWorkout) {
-                        mainHandler.post(() -> {
-                            if (listener != null) {
-                                listener.onWorkoutAdded();
-                            }
-                            // Schedule notification if enabled
-                            if (addedWorkout.isNotificationEnabled()) {
-                                notificationManager.scheduleWorkoutNotification(addedWorkout);
-                            }
-                        });
-                    }
-
-                    @Override
-                    public void onError(String error) {
-                        mainHandler.post(() -> {
-                            if (listener != null) {
-                                listener.onError(error);
-                            }
-                        });
-                    }
-                });
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error adding workout", e);
-                mainHandler.post(() -> {
-                    if (listener != null) {
-                        listener.onError("Error adding workout: " + e.getMessage());
-                    }
-                });
+            @Override
+            public void onError(@NonNull Throwable error) {
+                Log.e(TAG, "Error adding workout", error);
+                if (listener != null) {
+                    listener.onError("Error saving workout: " + Futures.messageOf(error));
+                }
             }
         });
     }
 
     private boolean validateWorkout(Workout workout, OnWorkoutAddListener listener) {
         if (workout.getTitle() == null || workout.getTitle().trim().isEmpty()) {
-            mainHandler.post(() -> {
+            executors.mainThread().execute(() -> {
                 if (listener != null) {
                     listener.onError("Title is required");
                 }
@@ -121,7 +113,7 @@ public class WorkoutViewModel extends AndroidViewModel {
         }
 
         if (workout.getTime() == null || workout.getTime().trim().isEmpty()) {
-            mainHandler.post(() -> {
+            executors.mainThread().execute(() -> {
                 if (listener != null) {
                     listener.onError("Time is required");
                 }
@@ -130,7 +122,7 @@ public class WorkoutViewModel extends AndroidViewModel {
         }
 
         if (workout.getDayOfWeek() < 0 || workout.getDayOfWeek() > 6) {
-            mainHandler.post(() -> {
+            executors.mainThread().execute(() -> {
                 if (listener != null) {
                     listener.onError("Invalid day of week");
                 }
@@ -139,7 +131,7 @@ public class WorkoutViewModel extends AndroidViewModel {
         }
 
         if (workout.getDuration() <= 0) {
-            mainHandler.post(() -> {
+            executors.mainThread().execute(() -> {
                 if (listener != null) {
                     listener.onError("Duration must be positive");
                 }
@@ -148,7 +140,7 @@ public class WorkoutViewModel extends AndroidViewModel {
         }
 
         if (workout.getLocation() == null || workout.getLocation().trim().isEmpty()) {
-            mainHandler.post(() -> {
+            executors.mainThread().execute(() -> {
                 if (listener != null) {
                     listener.onError("Location is required");
                 }
@@ -165,26 +157,14 @@ public class WorkoutViewModel extends AndroidViewModel {
             return;
         }
 
-        executorService.execute(() -> {
-            try {
-                // Check for time conflicts with other workouts (excluding this one)
-                List<Workout> conflicts = repository.getWorkoutsAtTimeSync(workout.getDayOfWeek(), workout.getTime());
-                boolean hasConflict = false;
-                for (Workout existing : conflicts) {
-                    if (!existing.getId().equals(workout.getId())) {
-                        hasConflict = true;
-                        break;
-                    }
-                }
-
-                if (!hasConflict) {
-                    repository.update(workout);
-                    notificationManager.scheduleWorkoutNotification(workout);
-                } else {
-                    Log.e(TAG, "Time conflict when updating workout");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error updating workout", e);
+        // Scheduling runs on the write thread, no callback reaches the UI
+        repository.saveWorkout(workout, false).whenComplete((result, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Error updating workout", Futures.unwrap(error));
+            } else if (result.isSaved()) {
+                notificationManager.scheduleWorkoutNotification(result.getWorkout());
+            } else {
+                Log.e(TAG, "Time conflict when updating workout");
             }
         });
     }
@@ -195,7 +175,7 @@ public class WorkoutViewModel extends AndroidViewModel {
             return;
         }
 
-        executorService.execute(() -> {
+        executors.diskIO().execute("workout-delete", () -> {
             try {
                 repository.delete(workout);
                 notificationManager.cancelWorkoutNotification(workout.getId());
@@ -205,6 +185,33 @@ public class WorkoutViewModel extends AndroidViewModel {
         });
     }
 
+    public void deleteWorkoutById(String workoutId) {
+        if (workoutId == null) {
+            Log.e(TAG, "deleteWorkoutById: workoutId is null");
+            return;
+        }
+
+        repository.deleteById(workoutId);
+        notificationManager.cancelWorkoutNotification(workoutId);
+    }
+
+    /**
+     * Records a completed session of the workout in the history log
+     */
+    public void completeWorkout(Workout workout, int performance, double distance, double speed) {
+        if (workout == null) {
+            Log.e(TAG, "completeWorkout: workout is null");
+            return;
+        }
+
+        repository.logCompletion(new WorkoutLog(workout.getId(), System.currentTimeMillis(),
+                workout.getDuration(), performance, distance, speed));
+    }
+
+    public LiveData<List<WorkoutLog>> getHistoryBetween(long from, long to) {
+        return repository.getHistoryBetween(from, to);
+    }
+
     public LiveData<Workout> getWorkoutById(String id) {
         return repository.getWorkoutById(id);
     }
@@ -213,15 +220,37 @@ public class WorkoutViewModel extends AndroidViewModel {
         return repository.getWorkoutsByDay(dayOfWeek);
     }
 
+    public LiveData<List<WorkoutSummary>> getWorkoutSummariesByDay(int dayOfWeek) {
+        return repository.getWorkoutSummariesByDay(dayOfWeek);
+    }
+
+    /**
+     * The whole schedule indexed by day, for screens that switch between days
+     */
+    public LiveData<WorkoutWeek> getWeek() {
+        return repository.getWeek();
+    }
+
+    /**
+     * One day's workouts formatted for display, rebuilt off the main thread when the day changes
+     */
+    public LiveData<List<WorkoutRow>> getWorkoutRowsByDay(int dayOfWeek) {
+        LiveData<List<WorkoutRow>> rows = rowsByDay.get(dayOfWeek);
+        if (rows == null) {
+            rows = rowFactory.mapAsync(repository.getWorkoutSummariesByDay(dayOfWeek), WorkoutRowFactory.getExecutor());
+            rowsByDay.put(dayOfWeek, rows);
+        }
+        return rows;
+    }
+
     private boolean hasTimeConflict(Workout workout) {
         if (workout == null) return false;
         
-        List<Workout> conflicts = repository.getWorkoutsAtTimeSync(workout.getDayOfWeek(), workout.getTime());
-        return conflicts != null && !conflicts.isEmpty();
+        return !repository.findConflictsSync(workout).isEmpty();
     }
 
     public void deleteAllWorkouts() {
-        executorService.execute(() -> {
+        executors.diskIO().execute("workout-delete-all", () -> {
             try {
                 repository.deleteAll();
                 notificationManager.cancelAllNotifications();
@@ -242,6 +271,6 @@ public class WorkoutViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
+        futures.cancelAll();
     }
 } 
\ No newline at end of file
@@ -5,32 +5,41 @@ import android.appwidget.AppWidgetProvider;
 import android.content.Context;
 import android.widget.RemoteViews;
 import com.example.migym.R;
-import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutSummary;
 import com.example.migym.data.AppDatabase;
-import com.example.migym.data.WorkoutDao;
+import com.example.migym.data.WorkoutScheduleStore;
 import java.util.Calendar;
 import java.util.List;
 
 public class WorkoutWidget extends AppWidgetProvider {
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
-        }
+        // The first read after a cold start loads the schedule, so keep it off the main thread
+        PendingResult pendingResult = goAsync();
+        AppDatabase db = AppDatabase.getInstance(context);
+        db.getQueryExecutor().execute(() -> {
+            try {
+                WorkoutScheduleStore scheduleStore = WorkoutScheduleStore.getInstance(db);
+                // Calendar counts from Sunday as 1, day_of_week from Monday as 0
+                int today = (Calendar.getInstance().get(Calendar.DAY_OF_WEEK) + 5) % 7;
+                List<WorkoutSummary> workouts = scheduleStore.getSummariesByDay(today);
+                for (int appWidgetId : appWidgetIds) {
+                    updateAppWidget(context, appWidgetManager, appWidgetId, workouts);
+                }
+            } finally {
+                pendingResult.finish();
+            }
+        });
     }
 
-    private void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    private void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId,
+                                 List<WorkoutSummary> workouts) {
         RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.workout_widget);
         
-        AppDatabase db = AppDatabase.getInstance(context);
-        WorkoutDao workoutDao = db.workoutDao();
-        int today = Calendar.getInstance().get(Calendar.DAY_OF_WEEK);
-        List<Workout> workouts = workoutDao.getWorkoutsByDaySync(today);
-        
         if (!workouts.isEmpty()) {
             StringBuilder workoutText = new StringBuilder();
-            for (Workout workout : workouts) {
-                workoutText.append(workout.getTitle())
+            for (WorkoutSummary workout : workouts) {
+                workoutText.append(workout.getName())
                           .append(" - ")
                           .append(workout.getTime())
                           .append("\n");
@@ -6,17 +6,34 @@ import android.content.Context;
 import android.content.Intent;
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
+import androidx.work.Data;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 import com.example.migym.R;
+import com.example.migym.notifications.ReminderScheduler;
 import com.example.migym.notifications.WorkoutNotificationManager;
 import com.example.migym.MainActivity;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Shows one batch of reminder and completion notifications, see {@link ReminderScheduler}.
+ * A batch of several is posted as a group with a summary, so it alerts once.
+ */
 public class WorkoutNotificationWorker extends Worker {
+    // Single trigger, as enqueued before reminders were batched
+    public static final String KEY_WORKOUT_ID = "workout_id";
     public static final String KEY_WORKOUT_TITLE = "workout_title";
     public static final String KEY_NOTIFICATION_TYPE = "notification_type";
+    // One entry per trigger of the batch, in time order
+    public static final String KEY_WORKOUT_IDS = "workout_ids";
+    public static final String KEY_WORKOUT_TITLES = "workout_titles";
+    public static final String KEY_NOTIFICATION_TYPES = "notification_types";
+    public static final String KEY_TRIGGER_KEYS = "trigger_keys";
+    public static final String KEY_TRIGGER_TIMES = "trigger_times";
     public static final String TYPE_REMINDER = "reminder";
     public static final String TYPE_COMPLETION = "completion";
+    private static final String GROUP_KEY = "com.example.migym.WORKOUT_NOTIFICATIONS";
 
     private final Context context;
 
@@ -28,11 +45,14 @@ public class WorkoutNotificationWorker extends Worker {
     @NonNull
     @Override
     public Result doWork() {
-        String workoutTitle = getInputData().getString(KEY_WORKOUT_TITLE);
-        String notificationType = getInputData().getString(KEY_NOTIFICATION_TYPE);
-
-        if (workoutTitle == null || notificationType == null) {
-            return Result.failure();
+        Data input = getInputData();
+        String[] workoutIds = input.getStringArray(KEY_WORKOUT_IDS);
+        String[] workoutTitles = input.getStringArray(KEY_WORKOUT_TITLES);
+        String[] notificationTypes = input.getStringArray(KEY_NOTIFICATION_TYPES);
+        if (workoutIds == null || workoutTitles == null || notificationTypes == null) {
+            workoutIds = new String[]{input.getString(KEY_WORKOUT_ID)};
+            workoutTitles = new String[]{input.getString(KEY_WORKOUT_TITLE)};
+            notificationTypes = new String[]{input.getString(KEY_NOTIFICATION_TYPE)};
         }
 
         NotificationManager notificationManager = 
@@ -48,16 +68,48 @@ public class WorkoutNotificationWorker extends Worker {
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
 
-        NotificationCompat.Builder notification;
-        if (TYPE_REMINDER.equals(notificationType)) {
-            notification = createReminderNotification(workoutTitle, pendingIntent);
-        } else if (TYPE_COMPLETION.equals(notificationType)) {
-            notification = createCompletionNotification(workoutTitle, pendingIntent);
-        } else {
+        List<NotificationCompat.Builder> notifications = new ArrayList<>();
+        List<Integer> notificationIds = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < notificationTypes.length && i < workoutTitles.length; i++) {
+            String workoutTitle = workoutTitles[i];
+            if (workoutTitle == null) continue;
+            if (TYPE_REMINDER.equals(notificationTypes[i])) {
+                notifications.add(createReminderNotification(workoutTitle, pendingIntent));
+                lines.add(context.getString(R.string.workout_reminder_text, workoutTitle));
+            } else if (TYPE_COMPLETION.equals(notificationTypes[i])) {
+                notifications.add(createCompletionNotification(workoutTitle, pendingIntent));
+                lines.add(context.getString(R.string.workout_completion_text, workoutTitle));
+            } else {
+                continue;
+            }
+            String workoutId = i < workoutIds.length ? workoutIds[i] : null;
+            notificationIds.add((notificationTypes[i] + "_" + workoutId).hashCode());
+        }
+
+        if (notifications.isEmpty()) {
             return Result.failure();
         }
 
-        notificationManager.notify(WorkoutNotificationManager.NOTIFICATION_ID, notification.build());
+        if (notifications.size() == 1) {
+            notificationManager.notify(WorkoutNotificationManager.NOTIFICATION_ID, notifications.get(0).build());
+        } else {
+            for (int i = 0; i < notifications.size(); i++) {
+                NotificationCompat.Builder notification = notifications.get(i)
+                    .setGroup(GROUP_KEY)
+                    .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY);
+                notificationManager.notify(notificationIds.get(i), notification.build());
+            }
+            notificationManager.notify(WorkoutNotificationManager.NOTIFICATION_ID,
+                createSummaryNotification(lines, pendingIntent).build());
+        }
+
+        // Count the wakeup and arm what now enters the window, including next week's
+        String[] triggerKeys = input.getStringArray(KEY_TRIGGER_KEYS);
+        long[] triggerTimes = input.getLongArray(KEY_TRIGGER_TIMES);
+        ReminderScheduler.getInstance(context).onBatchShown(notifications.size(),
+            triggerKeys != null ? triggerKeys : new String[0],
+            triggerTimes != null ? triggerTimes : new long[0]);
         return Result.success();
     }
 
@@ -86,4 +138,27 @@ public class WorkoutNotificationWorker extends Worker {
             .setAutoCancel(true)
             .setContentIntent(pendingIntent);
     }
-} 
\ No newline at end of file
+
+    private NotificationCompat.Builder createSummaryNotification(
+        List<String> lines,
+        PendingIntent pendingIntent
+    ) {
+        String title = context.getString(R.string.workout_notifications_summary, lines.size());
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle()
+            .setSummaryText(title);
+        for (String line : lines) {
+            style.addLine(line);
+        }
+        return new NotificationCompat.Builder(context, WorkoutNotificationManager.CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle(title)
+            .setContentText(lines.get(0))
+            .setStyle(style)
+            .setGroup(GROUP_KEY)
+            .setGroupSummary(true)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.migym.adapters;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+import androidx.test.core.app.ApplicationProvider;
+import com.example.migym.R;
+import com.example.migym.models.WorkoutSummary;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Binding a prebuilt {@link WorkoutRow} must not format or allocate anything beyond what
+ * the views themselves allocate for setText. The bind is measured against making the
+ * same view calls directly, so framework costs cancel out and no extra byte is allowed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class WorkoutAdapterBindAllocationTest {
+    private static final int ROWS = 1000;
+    private static final int HOLDERS = 10;
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private com.sun.management.ThreadMXBean threads;
+    private final List<WorkoutRow> rows = new ArrayList<>(ROWS);
+    private final List<WorkoutAdapter.WorkoutViewHolder> holders = new ArrayList<>(HOLDERS);
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("Thread allocation counters not available",
+                bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Context context = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.Theme_MiGym);
+        WorkoutRowFactory factory = new WorkoutRowFactory(context);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(factory.create(new WorkoutSummary("w-" + i, "Workout " + i, String.valueOf(i % 5),
+                    i % 7, "07:30", (i % 7) * 1440 + 450, 30 + i % 60, "Gimnasio", 1)));
+        }
+
+        FrameLayout parent = new FrameLayout(context);
+        WorkoutAdapter.OnWorkoutClickListener listener = new WorkoutAdapter.OnWorkoutClickListener() {
+            @Override
+            public void onWorkoutClick(WorkoutSummary workout) {
+            }
+
+            @Override
+            public void onDeleteClick(WorkoutSummary workout) {
+            }
+        };
+        for (int i = 0; i < HOLDERS; i++) {
+            holders.add(WorkoutAdapter.WorkoutViewHolder.create(parent, listener));
+        }
+    }
+
+    @Test
+    public void bindAllocatesNoMoreThanSetText() {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            bindAll();
+            setTextAll();
+        }
+
+        long bindBytes = Long.MAX_VALUE;
+        long setTextBytes = Long.MAX_VALUE;
+        // The lowest round filters out one-off allocations from the runtime
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            bindBytes = Math.min(bindBytes, measure(this::bindAll));
+            setTextBytes = Math.min(setTextBytes, measure(this::setTextAll));
+        }
+
+        assertTrue("Binding " + ROWS + " rows allocated " + (bindBytes - setTextBytes)
+                + " bytes more than setting their text", bindBytes <= setTextBytes);
+    }
+
+    private long measure(Runnable round) {
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        round.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private void bindAll() {
+        for (int i = 0; i < ROWS; i++) {
+            holders.get(i % HOLDERS).bind(rows.get(i));
+        }
+    }
+
+    // What any bind has to do: the same calls on the same views
+    private void setTextAll() {
+        for (int i = 0; i < ROWS; i++) {
+            WorkoutRow row = rows.get(i);
+            View item = holders.get(i % HOLDERS).itemView;
+            item.findViewById(R.id.deleteWorkoutButton).setVisibility(View.VISIBLE);
+            ((TextView) item.findViewById(R.id.workoutNameText)).setText(row.getName());
+            ((TextView) item.findViewById(R.id.workoutTimeText)).setText(row.getTimeLabel());
+            ((TextView) item.findViewById(R.id.workoutLocationText)).setText(row.getLocation());
+            ((TextView) item.findViewById(R.id.workoutDurationText)).setText(row.getDurationLabel());
+            ((TextView) item.findViewById(R.id.workoutDayText)).setText(row.getDayLabel());
+            ((TextView) item.findViewById(R.id.workoutTypeText)).setText(row.getTypeLabel());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.migym.calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.migym.models.WorkoutReminder;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+
+/**
+ * Occurrences across the 2024 clock changes in Madrid: forward on Sunday 31 March at
+ * 02:00, back on Sunday 27 October at 03:00.
+ */
+public class WorkoutCalendarTest {
+    private static final ZoneId MADRID = ZoneId.of("Europe/Madrid");
+    private static final int MONDAY = 0;
+    private static final int WEDNESDAY = 2;
+    private static final int SUNDAY = 6;
+    private static final int YEAR_WORKOUTS = 10_000;
+    // Loose bound, only meant to catch a fall back to per-occurrence ZonedDateTime work
+    private static final long MAX_YEAR_MILLIS = 5_000;
+
+    @Test
+    public void keepsWallClockTimeAcrossSpringForward() {
+        ZonedDateTime next = next(SUNDAY, "10:00", LocalDateTime.of(2024, 3, 24, 10, 0));
+
+        assertEquals(LocalDateTime.of(2024, 3, 31, 10, 0), next.toLocalDateTime());
+        assertEquals(ZoneOffset.ofHours(2), next.getOffset());
+    }
+
+    @Test
+    public void movesTimeInGapForward() {
+        ZonedDateTime next = next(SUNDAY, "02:30", LocalDateTime.of(2024, 3, 30, 12, 0));
+
+        assertEquals(LocalDateTime.of(2024, 3, 31, 3, 30), next.toLocalDateTime());
+    }
+
+    @Test
+    public void usesFirstOfRepeatedTimes() {
+        ZonedDateTime next = next(SUNDAY, "02:30", LocalDateTime.of(2024, 10, 26, 12, 0));
+
+        assertEquals(LocalDateTime.of(2024, 10, 27, 2, 30), next.toLocalDateTime());
+        assertEquals(ZoneOffset.ofHours(2), next.getOffset());
+    }
+
+    @Test
+    public void countsDaysFromMondayAndTreatsSevenAsSunday() {
+        LocalDateTime wednesday = LocalDateTime.of(2024, 5, 8, 12, 0);
+
+        assertEquals(DayOfWeek.MONDAY, next(MONDAY, "08:00", wednesday).getDayOfWeek());
+        assertEquals(DayOfWeek.WEDNESDAY, next(WEDNESDAY, "08:00", wednesday).getDayOfWeek());
+        assertEquals(DayOfWeek.SUNDAY, next(SUNDAY, "08:00", wednesday).getDayOfWeek());
+        assertEquals(DayOfWeek.SUNDAY, next(7, "08:00", wednesday).getDayOfWeek());
+    }
+
+    @Test
+    public void nextIsStrictlyAfter() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 6, 8, 0);
+
+        assertEquals(start.plusWeeks(1), next(MONDAY, "08:00", start).toLocalDateTime());
+    }
+
+    @Test
+    public void previousStepsBackOverFallBack() {
+        long before = millis(LocalDateTime.of(2024, 10, 28, 12, 0));
+
+        long previous = WorkoutCalendar.previousStart(SUNDAY, LocalTime.of(9, 0), before, MADRID);
+
+        ZonedDateTime start = Instant.ofEpochMilli(previous).atZone(MADRID);
+        assertEquals(LocalDateTime.of(2024, 10, 27, 9, 0), start.toLocalDateTime());
+        assertEquals(ZoneOffset.ofHours(1), start.getOffset());
+    }
+
+    @Test
+    public void calendarMatchesSingleWorkoutSearchAroundClockChanges() {
+        List<WorkoutReminder> schedule = new ArrayList<>();
+        String[] times = {"00:00", "01:59", "02:00", "02:30", "02:59", "03:00", "07:30", "23:59"};
+        for (int day = 0; day < 7; day++) {
+            for (String time : times) {
+                schedule.add(workout("w-" + day + "-" + time, day, time));
+            }
+        }
+        WorkoutCalendar calendar = new WorkoutCalendar(schedule, MADRID);
+
+        for (LocalDate week : new LocalDate[]{LocalDate.of(2024, 3, 25), LocalDate.of(2024, 10, 21)}) {
+            long from = millis(week.atStartOfDay());
+            long to = millis(week.plusWeeks(2).atStartOfDay());
+
+            List<Long> expected = new ArrayList<>();
+            for (WorkoutReminder workout : schedule) {
+                for (long start = WorkoutCalendar.nextStart(workout, from - 1, MADRID); start < to;
+                     start = WorkoutCalendar.nextStart(workout, start, MADRID)) {
+                    expected.add(start);
+                }
+            }
+            Collections.sort(expected);
+
+            List<Long> actual = new ArrayList<>();
+            for (WorkoutCalendar.Occurrence occurrence : calendar.between(from, to)) {
+                actual.add(occurrence.getStartMillis());
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void nextAndPreviousFindNeighbours() {
+        WorkoutCalendar calendar = new WorkoutCalendar(Collections.singletonList(workout("w", WEDNESDAY, "18:00")), MADRID);
+        long now = millis(LocalDateTime.of(2024, 3, 30, 12, 0));
+
+        WorkoutCalendar.Occurrence next = calendar.next(now);
+        WorkoutCalendar.Occurrence previous = calendar.previous(now);
+
+        assertNotNull(next);
+        assertNotNull(previous);
+        assertEquals(LocalDateTime.of(2024, 4, 3, 18, 0), next.getStart(MADRID).toLocalDateTime());
+        assertEquals(LocalDateTime.of(2024, 3, 27, 18, 0), previous.getStart(MADRID).toLocalDateTime());
+    }
+
+    @Test
+    public void computesAYearForTenThousandWorkouts() {
+        List<WorkoutReminder> schedule = new ArrayList<>(YEAR_WORKOUTS);
+        for (int i = 0; i < YEAR_WORKOUTS; i++) {
+            int minute = (i * 7) % (24 * 60);
+            schedule.add(workout("w-" + i, i % 7,
+                    String.format(Locale.ROOT, "%02d:%02d", minute / 60, minute % 60)));
+        }
+        long from = millis(LocalDateTime.of(2024, 1, 1, 0, 0));
+        long to = millis(LocalDateTime.of(2025, 1, 1, 0, 0));
+
+        long startedAt = System.nanoTime();
+        WorkoutCalendar calendar = new WorkoutCalendar(schedule, MADRID);
+        long[] count = new long[1];
+        long[] last = {Long.MIN_VALUE};
+        calendar.forEachBetween(from, to, (workout, start) -> {
+            assertTrue(start >= last[0]);
+            last[0] = start;
+            count[0]++;
+        });
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000L;
+
+        // 2024 starts on a Monday and has 366 days, so Mondays and Tuesdays happen 53 times
+        long expected = 0;
+        for (WorkoutReminder workout : schedule) {
+            expected += workout.getDayOfWeek() == MONDAY || workout.getDayOfWeek() == MONDAY + 1 ? 53 : 52;
+        }
+        assertEquals(expected, count[0]);
+        assertTrue("A year took " + elapsedMillis + " ms", elapsedMillis < MAX_YEAR_MILLIS);
+    }
+
+    private static ZonedDateTime next(int dayOfWeek, String time, LocalDateTime after) {
+        long start = WorkoutCalendar.nextStart(dayOfWeek, WorkoutCalendar.parseTime(time), millis(after), MADRID);
+        return Instant.ofEpochMilli(start).atZone(MADRID);
+    }
+
+    private static long millis(LocalDateTime local) {
+        return local.atZone(MADRID).toInstant().toEpochMilli();
+    }
+
+    private static WorkoutReminder workout(String id, int dayOfWeek, String time) {
+        return new WorkoutReminder(id, id, dayOfWeek, time, 0, 60, 30, true);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.migym.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutTag;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Runs every migration against the schemas exported to app/schemas. Each step is checked
+ * on its own with {@link MigrationTestHelper}, and version 1 databases with realistic
+ * row counts are upgraded through the whole {@link AppDatabase#ALL_MIGRATIONS} chain.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class AppDatabaseMigrationTest {
+    private static final String TEST_DB = "migration-test";
+    // A heavy user: several weekly schedules imported over time
+    private static final int FIXTURE_ROWS = 2000;
+    private static final int[] BENCHMARK_ROWS = {100, 1000, 5000};
+    // Upgrades run on the first launch after an update, so they must not show up as a slow start
+    private static final long MAX_MIGRATION_MILLIS = 500;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void eachStepMatchesTheExportedSchema() throws IOException {
+        for (Migration migration : AppDatabase.ALL_MIGRATIONS) {
+            SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, migration.startVersion);
+            insertFixture(db, FIXTURE_ROWS);
+            db.close();
+
+            db = helper.runMigrationsAndValidate(TEST_DB, migration.endVersion, true, migration);
+            assertEquals("Rows after migrating to " + migration.endVersion, FIXTURE_ROWS, countWorkouts(db));
+            db.close();
+        }
+    }
+
+    @Test
+    public void migratesVersion1WithoutLosingRows() throws IOException {
+        createVersion1Database(FIXTURE_ROWS);
+
+        AppDatabase db = AppDatabase.newBuilder(context, TEST_DB).allowMainThreadQueries().build();
+        try {
+            List<Workout> workouts = db.workoutDao().getAllWorkoutsSync();
+            assertEquals(FIXTURE_ROWS, workouts.size());
+
+            // Row 0 is day 0 at 06:00
+            Workout first = findById(workouts, "w-0");
+            assertEquals(6 * 60, first.getStartMinuteOfWeek());
+            assertEquals(WorkoutTag.maskOf(WorkoutTag.KIND_MUSCLE_GROUP, "legs", "glutes"), first.getMuscleMask());
+            assertEquals(WorkoutTag.maskOf(WorkoutTag.KIND_EQUIPMENT, "dumbbells"), first.getEquipmentMask());
+
+            int legsId = WorkoutTag.idOf(WorkoutTag.KIND_MUSCLE_GROUP, 7);
+            assertEquals(FIXTURE_ROWS / 2, db.workoutTagDao().getWorkoutIdsWithTagSync(legsId).size());
+            assertEquals(FIXTURE_ROWS / 2, countFtsMatches(db, "mancuer*"));
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void movesOldSundayRowsToSix() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 6);
+        ContentValues sunday = fixtureRow(0);
+        sunday.put("day_of_week", 7);
+        sunday.put("time", "09:30");
+        sunday.put("start_minute_of_week", 7 * Workout.MINUTES_PER_DAY + 9 * 60 + 30);
+        db.insert("workouts", SQLiteDatabase.CONFLICT_ABORT, sunday);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 7, true, AppDatabase.MIGRATION_6_7);
+        try (Cursor cursor = db.query("SELECT day_of_week, start_minute_of_week FROM workouts")) {
+            cursor.moveToFirst();
+            assertEquals(6, cursor.getInt(0));
+            assertEquals(Workout.computeStartMinuteOfWeek(6, "09:30"), cursor.getInt(1));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrationTimeForRealisticRowCounts() throws IOException {
+        // The first open loads Room and SQLite classes, which is not migration time
+        createVersion1Database(BENCHMARK_ROWS[0]);
+        AppDatabase.newBuilder(context, TEST_DB).allowMainThreadQueries().build().close();
+
+        for (int rows : BENCHMARK_ROWS) {
+            context.deleteDatabase(TEST_DB);
+            createVersion1Database(rows);
+
+            long start = System.nanoTime();
+            AppDatabase db = AppDatabase.newBuilder(context, TEST_DB).allowMainThreadQueries().build();
+            // Opening the helper runs the migrations and the schema validation
+            db.getOpenHelper().getWritableDatabase();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+            db.close();
+
+            assertTrue("Migration of " + rows + " rows took " + elapsedMs + " ms",
+                    elapsedMs < MAX_MIGRATION_MILLIS);
+        }
+    }
+
+    private void createVersion1Database(int rows) throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 1);
+        insertFixture(db, rows);
+        db.close();
+    }
+
+    // Version 1 columns only; later columns take their defaults or are backfilled
+    private static void insertFixture(SupportSQLiteDatabase db, int rows) {
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < rows; i++) {
+                db.insert("workouts", SQLiteDatabase.CONFLICT_ABORT, fixtureRow(i));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static ContentValues fixtureRow(int i) {
+        boolean even = i % 2 == 0;
+        ContentValues values = new ContentValues();
+        values.put("id", "w-" + i);
+        values.put("name", "Workout " + i);
+        values.put("title", "Workout " + i);
+        values.put("description", "Sesión de prueba número " + i);
+        values.put("type", String.valueOf(i % 5));
+        values.put("day_of_week", i % 7);
+        values.put("time", String.format(Locale.ROOT, "%02d:%02d", 6 + (i / 7) % 16, (i % 4) * 15));
+        values.put("duration", 45);
+        values.put("instructor", even ? "Ana" : "Luis");
+        values.put("location", "Gimnasio");
+        values.put("completed", 0);
+        values.put("equipment", even ? "Mancuernas" : "Esterilla");
+        values.put("muscle_groups", even ? "Piernas, glúteos" : "Core");
+        values.put("latitude", 43.26);
+        values.put("longitude", -2.93);
+        values.put("distance", 0.0);
+        values.put("speed", 0.0);
+        values.put("notes", "");
+        values.put("performance", 0);
+        values.put("notification_time", 15);
+        values.put("notification_enabled", even ? 1 : 0);
+        return values;
+    }
+
+    private static Workout findById(List<Workout> workouts, String id) {
+        for (Workout workout : workouts) {
+            if (workout.getId().equals(id)) {
+                return workout;
+            }
+        }
+        throw new AssertionError("Missing workout " + id);
+    }
+
+    private static int countWorkouts(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM workouts")) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    private static int countFtsMatches(AppDatabase db, String match) {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM workouts_fts WHERE workouts_fts MATCH ?",
+                new Object[] {match})) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+}
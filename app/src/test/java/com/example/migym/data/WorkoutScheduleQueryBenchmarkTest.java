@@ -0,0 +1,152 @@
+package com.example.migym.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.example.migym.models.Workout;
+import com.example.migym.models.WorkoutSummary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Per-day and conflict queries over 100k workouts. The plans must be index searches
+ * without a sort step. Day reads are bounded; the conflict check's timing is reported.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class WorkoutScheduleQueryBenchmarkTest {
+    private static final int ROWS = 100_000;
+    private static final int INSERT_CHUNK = 1000;
+    private static final int CONFLICT_PROBES = 100;
+    // A day holds a seventh of the rows, so this bounds reading ~14k rows
+    private static final long MAX_DAY_QUERY_MILLIS = 500;
+
+    private AppDatabase db;
+    private WorkoutDao dao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).allowMainThreadQueries().build();
+        dao = db.workoutDao();
+        List<Workout> chunk = new ArrayList<>(INSERT_CHUNK);
+        for (int i = 0; i < ROWS; i++) {
+            chunk.add(workout(i));
+            if (chunk.size() == INSERT_CHUNK) {
+                List<Workout> toInsert = chunk;
+                db.runInTransaction(() -> dao.insertAll(toInsert));
+                chunk = new ArrayList<>(INSERT_CHUNK);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void dayQueryIsAnIndexRangeScan() {
+        assertIndexSearch("SELECT * FROM workouts WHERE day_of_week = 3 ORDER BY start_minute_of_week ASC",
+                "index_workouts_day_of_week_start_minute_of_week");
+    }
+
+    @Test
+    public void conflictQueryIsAnIndexRangeScan() {
+        // The range query findOverlappingSync runs for each week shift
+        assertIndexSearch("SELECT * FROM workouts WHERE start_minute_of_week >= 4700 AND start_minute_of_week < 4800 "
+                + "ORDER BY start_minute_of_week ASC", "index_workouts_start_minute_of_week");
+    }
+
+    @Test
+    public void readsEveryDayQuickly() {
+        // First run warms up the statement cache and the cursor code
+        dao.getWorkoutSummariesByDaySync(0);
+
+        int total = 0;
+        for (int day = 0; day < 7; day++) {
+            long start = System.nanoTime();
+            List<WorkoutSummary> summaries = dao.getWorkoutSummariesByDaySync(day);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+            total += summaries.size();
+            assertTrue("Day " + day + " took " + elapsedMillis + " ms", elapsedMillis < MAX_DAY_QUERY_MILLIS);
+        }
+        assertEquals(ROWS, total);
+    }
+
+    @Test
+    public void longestDurationIsReadFromTheIndex() {
+        String plan = queryPlan("SELECT MAX(duration) FROM workouts");
+        assertTrue(plan, plan.contains("INDEX index_workouts_duration"));
+    }
+
+    @Test
+    public void reportsConflictCheckTiming() {
+        dao.findOverlappingSync(probe(0));
+
+        // 100k rows in 15 minute steps put ~149 rows in each slot. A 45 minute probe overlaps
+        // five slots, so each check returns ~750 full rows; the time is reported, not bounded.
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CONFLICT_PROBES; i++) {
+            int minute = (i * 37 * 15) % Workout.MINUTES_PER_WEEK;
+            found += dao.findOverlappingSync(probe(minute)).size();
+        }
+        double averageMillis = (System.nanoTime() - start) / 1e6 / CONFLICT_PROBES;
+
+        assertTrue(found > 0);
+        System.out.println(String.format(Locale.ROOT, "findOverlappingSync: %.2f ms per check, %d conflicts on average",
+                averageMillis, found / CONFLICT_PROBES));
+    }
+
+    private void assertIndexSearch(String sql, String index) {
+        String plan = queryPlan(sql);
+        // Older SQLite versions write "SEARCH TABLE workouts"
+        assertTrue(plan, plan.startsWith("SEARCH"));
+        assertTrue(plan, plan.contains("USING INDEX " + index + " "));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    private String queryPlan(String sql) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, null)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static Workout probe(int minute) {
+        Workout probe = workout(minute / 15);
+        probe.setId("probe");
+        return probe;
+    }
+
+    // Spread over the week in 15 minute steps, like a large shared timetable
+    private static Workout workout(int i) {
+        int minute = (i * 15) % Workout.MINUTES_PER_WEEK;
+        Workout workout = new Workout();
+        workout.setId("w-" + i);
+        workout.setName("Workout " + i);
+        workout.setTitle("Workout " + i);
+        workout.setDayOfWeek(minute / Workout.MINUTES_PER_DAY);
+        workout.setTime(String.format(Locale.ROOT, "%02d:%02d",
+                (minute % Workout.MINUTES_PER_DAY) / 60, minute % 60));
+        workout.setDuration(45);
+        return workout;
+    }
+}